@@ -0,0 +1,25 @@
+package com.api.sisi_yemi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Bounded pool for fanning out blocking DynamoDB reads within a single request
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService hydrationExecutor(@Value("${hydration.parallelism:8}") int parallelism) {
+        return Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("hydration-", 0).daemon().factory());
+    }
+
+    // Drains outbound WebSocket buffers; a client stuck mid-send parks one virtual thread, not a pooled one
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService websocketSendExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-send-", 0).factory());
+    }
+}
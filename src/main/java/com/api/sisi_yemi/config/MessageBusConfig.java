@@ -0,0 +1,37 @@
+package com.api.sisi_yemi.config;
+
+import com.api.sisi_yemi.messaging.BrokerMessageBus;
+import com.api.sisi_yemi.messaging.LoopbackMessageBus;
+import com.api.sisi_yemi.messaging.MessageBroker;
+import com.api.sisi_yemi.messaging.MessageBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MessageBusConfig {
+
+    // A single instance needs no routing
+    @Bean
+    @ConditionalOnProperty(name = "messaging.bus.type", havingValue = "loopback", matchIfMissing = true)
+    public MessageBus loopbackMessageBus() {
+        return new LoopbackMessageBus();
+    }
+
+    // No in-process fallback: instances that cannot reach each other would silently drop frames
+    @Bean
+    @ConditionalOnProperty(name = "messaging.bus.type", havingValue = "broker")
+    public MessageBus brokerMessageBus(ObjectProvider<MessageBroker> messageBroker,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${messaging.bus.max-batch-size:256}") int maxBatchSize) {
+        MessageBroker broker = messageBroker.getIfAvailable();
+        if (broker == null) {
+            throw new IllegalStateException(
+                    "messaging.bus.type=broker needs a MessageBroker bean connected to the shared broker");
+        }
+        return new BrokerMessageBus(broker, meterRegistry, maxBatchSize);
+    }
+}
@@ -6,6 +6,7 @@ import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.model.Conversation;
 import com.api.sisi_yemi.repository.ConversationDynamoDbRepositoryImpl;
 import com.api.sisi_yemi.service.ConversationService;
+import com.api.sisi_yemi.service.ConversationStateCache;
 import com.api.sisi_yemi.util.DynamoDbUtilHelper;
 import com.api.sisi_yemi.util.auth.AuthenticationHelper;
 import com.api.sisi_yemi.util.dynamodb.DynamoDbHelper;
@@ -36,6 +37,8 @@ public class ConversationController {
 
     private final DynamoDbUtilHelper dynamoDbUtilHelper;
 
+    private final ConversationStateCache stateCache;
+
     @GetMapping
     public ResponseEntity<?> getUserConversations() {
         try {
@@ -101,6 +104,7 @@ public class ConversationController {
         }
 
         convTable.deleteById(conversationId);
+        stateCache.invalidate(conversationId);
         return ResponseEntity.ok().body("Conversation deleted successfully.");
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.api.sisi_yemi.controller;
 
 import com.api.sisi_yemi.dto.MessageDto;
+import com.api.sisi_yemi.dto.MessageHistoryPage;
 import com.api.sisi_yemi.dto.SendMessageRequest;
 import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.service.MessageService;
@@ -10,12 +11,12 @@ import com.api.sisi_yemi.util.auth.AuthenticationHelper;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.UUID;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/users/messages")
@@ -29,10 +30,14 @@ public class MessageController {
     private final UploadService uploadService;
 
     @GetMapping("/{conversationId}")
-    public ResponseEntity<?> getConversationMessages(@PathVariable String conversationId) {
+    public ResponseEntity<?> getConversationMessages(
+            @PathVariable String conversationId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(defaultValue = "30") int limit) {
         try {
             String userId = authHelper.getAuthenticatedUserId();
-            List<MessageDto> messages = messageService.getMessages(conversationId, userId);
+            MessageHistoryPage messages = messageService.getMessages(conversationId, userId, before, after, limit);
             return ResponseEntity.ok(messages);
         } catch (ApiException e) {
             logger.warn("API Exception while fetching messages: {}", e.getMessage());
@@ -1,6 +1,6 @@
 package com.api.sisi_yemi.controller;
 
-import com.api.sisi_yemi.dto.MessageDto;
+import com.api.sisi_yemi.dto.MessageHistoryPage;
 import com.api.sisi_yemi.dto.SendMessageRequest;
 import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.service.MessageService;
@@ -16,8 +16,6 @@ import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
-import java.util.List;
-
 @Controller
 @RequiredArgsConstructor
 public class MessageWebSocketController {
@@ -104,12 +102,12 @@ public class MessageWebSocketController {
     }
 
     @SubscribeMapping("/messages/{conversationId}/initial-load")
-    public List<MessageDto> handleInitialLoad(
+    public MessageHistoryPage handleInitialLoad(
             @DestinationVariable String conversationId) {
 
         try {
             String userId = authHelper.getAuthenticatedUserId();
-            return messageService.getMessages(conversationId, userId);
+            return messageService.getMessages(conversationId, userId, null, null, MessageService.DEFAULT_HISTORY_LIMIT);
         } catch (ApiException e) {
             logger.error("Failed to load initial messages via WebSocket: {}", e.getMessage());
             throw new MessagingException(e.getMessage());
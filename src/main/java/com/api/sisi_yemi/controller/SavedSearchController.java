@@ -0,0 +1,43 @@
+package com.api.sisi_yemi.controller;
+
+import com.api.sisi_yemi.dto.SavedSearchRequest;
+import com.api.sisi_yemi.model.SavedSearch;
+import com.api.sisi_yemi.service.SavedSearchService;
+import com.api.sisi_yemi.util.auth.AuthenticationHelper;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/users/saved-searches")
+@RequiredArgsConstructor
+public class SavedSearchController {
+
+    private final SavedSearchService savedSearchService;
+
+    private final AuthenticationHelper authHelper;
+
+    @GetMapping
+    public ResponseEntity<List<SavedSearch>> getSavedSearches() {
+        String userId = authHelper.getAuthenticatedUserId();
+        return ResponseEntity.ok(savedSearchService.getSavedSearches(userId));
+    }
+
+    @PostMapping
+    public ResponseEntity<SavedSearch> createSavedSearch(@Valid @RequestBody SavedSearchRequest request) {
+        String userId = authHelper.getAuthenticatedUserId();
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(savedSearchService.createSavedSearch(userId, request));
+    }
+
+    @DeleteMapping("/{searchId}")
+    public ResponseEntity<Void> deleteSavedSearch(@PathVariable String searchId) {
+        String userId = authHelper.getAuthenticatedUserId();
+        savedSearchService.deleteSavedSearch(userId, searchId);
+        return ResponseEntity.noContent().build();
+    }
+}
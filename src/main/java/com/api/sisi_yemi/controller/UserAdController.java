@@ -1,24 +1,38 @@
 package com.api.sisi_yemi.controller;
 
 import com.api.sisi_yemi.dto.AdDetailsResponse;
+import com.api.sisi_yemi.dto.AdSearchPage;
+import com.api.sisi_yemi.dto.AdSuggestion;
+import com.api.sisi_yemi.dto.BulkDeletionStatus;
+import com.api.sisi_yemi.dto.FavoritesPage;
 import com.api.sisi_yemi.dto.FilteredAdResponse;
+import com.api.sisi_yemi.dto.PatchAdRequest;
 import com.api.sisi_yemi.dto.RecentActiveAdResponse;
+import com.api.sisi_yemi.dto.TrendingAdResponse;
 import com.api.sisi_yemi.dto.UserAdResponse;
 import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.model.UserAd;
+import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
 import com.api.sisi_yemi.service.AdDetailsService;
+import com.api.sisi_yemi.service.AdSuggestionService;
 import com.api.sisi_yemi.service.FavoriteService;
+import com.api.sisi_yemi.service.TrendingAdsService;
 import com.api.sisi_yemi.service.UserAdService;
 import com.api.sisi_yemi.util.auth.AuthenticationHelper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 @RestController
@@ -27,6 +41,7 @@ import java.util.*;
 public class UserAdController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserAdController.class);
+    private static final int DEFAULT_USER_ADS_PAGE_SIZE = 20;
 
     private final UserAdService userAdService;
 
@@ -36,6 +51,10 @@ public class UserAdController {
 
     private final FavoriteService favoriteService;
 
+    private final TrendingAdsService trendingAdsService;
+
+    private final AdSuggestionService adSuggestionService;
+
     private final ObjectMapper objectMapper;
 
     @GetMapping("/user/userAds")
@@ -60,6 +79,65 @@ public class UserAdController {
         ));
     }
 
+    // Opt-in paging of the same listing: sending limit or cursor returns one page plus nextCursor
+    @GetMapping(value = "/user/userAds", params = {"limit"})
+    public ResponseEntity<?> getUserAdsPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+        return userAdsPage(limit, cursor);
+    }
+
+    @GetMapping(value = "/user/userAds", params = {"cursor", "!limit"})
+    public ResponseEntity<?> getUserAdsPage(@RequestParam String cursor) {
+        return userAdsPage(DEFAULT_USER_ADS_PAGE_SIZE, cursor);
+    }
+
+    // Same listing as newline-delimited JSON, written page by page so memory stays flat
+    @GetMapping(value = "/user/userAds", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUserAds() {
+        String userId = authHelper.getAuthenticatedUserId();
+
+        StreamingResponseBody body = out -> userAdService.streamUserAds(userId, ads -> {
+            try {
+                for (UserAd ad : ads) {
+                    out.write(objectMapper.writeValueAsBytes(UserAdResponse.fromEntity(ad)));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private ResponseEntity<?> userAdsPage(int limit, String cursor) {
+        String userId = authHelper.getAuthenticatedUserId();
+        UserAdDynamoDbRepository.UserAdPage page = userAdService.getUserAdsPage(userId, limit, cursor);
+
+        List<UserAdResponse> responseAds = page.ads().stream()
+                .map(UserAdResponse::fromEntity)
+                .toList();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", responseAds.isEmpty() && cursor == null
+                ? "No ads found for this user."
+                : "User ads retrieved successfully.");
+        body.put("ads", responseAds);
+        body.put("nextCursor", page.nextCursor());
+        body.put("hasNextPage", page.nextCursor() != null);
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/user/userAds/stats")
+    public ResponseEntity<Map<String, Object>> getUserAdStats() {
+        String userId = authHelper.getAuthenticatedUserId();
+        return ResponseEntity.ok(userAdService.getUserAdStats(userId));
+    }
+
     @PostMapping("/post-ad")
     public ResponseEntity<?> createAd(@RequestBody UserAd userAd) {
         try {
@@ -101,6 +179,25 @@ public class UserAdController {
         }
     }
 
+    // Only the fields sent are written; send back the ad's version to guard against lost updates
+    @PatchMapping("/{adId}/userAd")
+    public ResponseEntity<?> patchAd(
+            @PathVariable String adId,
+            @Valid @RequestBody PatchAdRequest patch) {
+        try {
+            String userId = authHelper.getAuthenticatedUserId();
+            UserAd updated = userAdService.patchAd(adId, patch, userId);
+            return ResponseEntity.ok(UserAdResponse.fromEntity(updated));
+        } catch (ApiException ex) {
+            return ResponseEntity
+                    .status(ex.getStatus())
+                    .body(Map.of(
+                            "error", ex.getMessage(),
+                            "code", ex.getErrorCode()
+                    ));
+        }
+    }
+
     @DeleteMapping("/delete/{adId}/userAd")
     public ResponseEntity<?> deleteSingleAd(
             @PathVariable String adId) {
@@ -123,11 +220,7 @@ public class UserAdController {
     public ResponseEntity<?> deleteAllUserAds() {
         try {
             String userId = authHelper.getAuthenticatedUserId();
-            userAdService.deleteAllAdsByUserId(userId);
-            return ResponseEntity.ok(Map.of(
-                    "message",
-                    "All ads deleted successfully"
-            ));
+            return ResponseEntity.accepted().body(userAdService.deleteAllAdsByUserId(userId));
         } catch (Exception e) {
             logger.error("Error deleting all ad", e);
             return ResponseEntity.internalServerError()
@@ -135,10 +228,31 @@ public class UserAdController {
         }
     }
 
-    @GetMapping("/recent")
-    public ResponseEntity<List<RecentActiveAdResponse>> getRecentActiveAds() {
-        List<RecentActiveAdResponse> recentAds = userAdService.getRecentActiveAds();
-        return ResponseEntity.ok(recentAds);
+    @GetMapping("/delete/userAds/{jobId}")
+    public ResponseEntity<BulkDeletionStatus> getDeleteAllUserAdsStatus(@PathVariable String jobId) {
+        String userId = authHelper.getAuthenticatedUserId();
+        return ResponseEntity.ok(userAdService.getBulkDeletionStatus(jobId, userId));
+    }
+
+    @GetMapping(value = "/recent", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getRecentActiveAds() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(userAdService.getRecentActiveAds());
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingAdResponse>> getTrendingAds(
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(trendingAdsService.getTrending(category, limit));
+    }
+
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<AdSuggestion>> getSuggestions(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(adSuggestionService.suggest(query, limit));
     }
 
     @GetMapping("/{adId}/userAd")
@@ -147,11 +261,18 @@ public class UserAdController {
     }
 
     @GetMapping("/favorites")
-    public ResponseEntity<?> getUserFavorites() {
+    public ResponseEntity<?> getUserFavorites(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor) {
         try {
             String userId = authHelper.getAuthenticatedUserId();
-            List<RecentActiveAdResponse> favorites = favoriteService.getUserFavorites(userId);
+            FavoritesPage favorites = favoriteService.getUserFavorites(userId, limit, cursor);
             return ResponseEntity.ok(favorites);
+        } catch (ApiException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of(
+                    "error", e.getMessage(),
+                    "code", e.getErrorCode()
+            ));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Failed to retrieve favorites: " + e.getMessage());
@@ -224,6 +345,30 @@ public class UserAdController {
         return ResponseEntity.ok(ads);
     }
 
+    // Several statuses at once, optionally one seller's ads only, newest first
+    @GetMapping("/search")
+    public ResponseEntity<AdSearchPage> searchAds(
+            @RequestParam(defaultValue = "ACTIVE") List<String> status,
+            @RequestParam(required = false) String sellerId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) String condition,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor
+    ) {
+        if (sellerId != null && sellerId.isBlank()) sellerId = null;
+        if (category != null) category = category.trim();
+        if (location != null) location = location.trim();
+        if (condition != null) condition = condition.trim();
+        if (search != null) search = search.trim();
+
+        return ResponseEntity.ok(userAdService.searchAds(status, sellerId, category, location, condition,
+                minPrice, maxPrice, search, limit, cursor));
+    }
+
     private Map<String, String> parsePaginationToken(String token) {
         try {
             String decoded = new String(Base64.getDecoder().decode(token));
@@ -135,8 +135,7 @@ public class UserController {
     @DeleteMapping("/delete-user")
     public ResponseEntity<ApiResponse> deleteUser() {
         String userId = authHelper.getAuthenticatedUserId();
-        DynamoDbHelper<User> userHelper = dynamoDbHelperFactory.getHelper(USER_TABLE_NAME, User.class);
-        userHelper.deleteById(userId);
+        userService.deleteUser(userId);
         return ApiResponse.create("User has been deleted", HttpStatus.OK);
     }
 
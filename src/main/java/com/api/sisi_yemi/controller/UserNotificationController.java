@@ -0,0 +1,26 @@
+package com.api.sisi_yemi.controller;
+
+import com.api.sisi_yemi.repository.UserNotificationRepository;
+import com.api.sisi_yemi.service.UserNotificationService;
+import com.api.sisi_yemi.util.auth.AuthenticationHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/users/notifications")
+@RequiredArgsConstructor
+public class UserNotificationController {
+
+    private final UserNotificationService notificationService;
+
+    private final AuthenticationHelper authHelper;
+
+    @GetMapping
+    public ResponseEntity<UserNotificationRepository.NotificationPage> getNotifications(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor) {
+        String userId = authHelper.getAuthenticatedUserId();
+        return ResponseEntity.ok(notificationService.getNotifications(userId, limit, cursor));
+    }
+}
@@ -37,5 +37,6 @@ public class AdDetailsResponse {
     private double sellerResponseRate;
     private String sellerJoinDate;
     private double sellerReviews;
+    private long sellerActiveListings;
     // Add other seller fields as needed
 }
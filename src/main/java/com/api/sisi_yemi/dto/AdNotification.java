@@ -0,0 +1,30 @@
+package com.api.sisi_yemi.dto;
+
+import java.time.Instant;
+
+/**
+ * Listing alert delivered over the WebSocket. {@code savedSearchId} is set for saved-search
+ * matches, {@code previousPrice} for price drops.
+ */
+public record AdNotification(
+        Type type,
+        String adId,
+        String title,
+        double price,
+        Double previousPrice,
+        String imageUrl,
+        String savedSearchId,
+        String savedSearchName,
+        Instant createdAt
+) {
+    public enum Type {
+        SAVED_SEARCH_MATCH, PRICE_DROP
+    }
+
+    // Pending alerts for the same ad collapse into the newest, keeping the oldest known price
+    public AdNotification coalesce(AdNotification newer) {
+        Double earliestPrice = previousPrice != null ? previousPrice : newer.previousPrice();
+        return new AdNotification(newer.type(), newer.adId(), newer.title(), newer.price(), earliestPrice,
+                newer.imageUrl(), newer.savedSearchId(), newer.savedSearchName(), newer.createdAt());
+    }
+}
@@ -0,0 +1,11 @@
+package com.api.sisi_yemi.dto;
+
+public record AdSuggestion(
+        String text,
+        Type type,
+        double score
+) {
+    public enum Type {
+        TITLE, CATEGORY
+    }
+}
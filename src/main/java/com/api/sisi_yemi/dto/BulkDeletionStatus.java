@@ -0,0 +1,31 @@
+package com.api.sisi_yemi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+public class BulkDeletionStatus {
+
+    public enum State {
+        RUNNING, COMPLETED, COMPLETED_WITH_ERRORS, FAILED
+    }
+
+    private String jobId;
+    private State state;
+
+    private int totalAds;
+    private int deletedAds;
+    private int totalImages;
+    private int deletedImages;
+
+    private List<ItemFailure> failures;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    // type is "ad" or "image", id is the ad id or the S3 key
+    public record ItemFailure(String type, String id, String reason) {}
+}
@@ -0,0 +1,9 @@
+package com.api.sisi_yemi.dto;
+
+import java.util.List;
+
+public record FavoritesPage(
+        List<RecentActiveAdResponse> items,
+        String nextCursor,
+        boolean hasNextPage
+) {}
@@ -0,0 +1,15 @@
+package com.api.sisi_yemi.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A window of a conversation, oldest first. {@code before} and {@code after} are the cursors
+ * for the adjacent older and newer windows; {@code hasMore} refers to the direction requested.
+ */
+public record MessageHistoryPage(
+        List<MessageDto> items,
+        LocalDateTime before,
+        LocalDateTime after,
+        boolean hasMore
+) {}
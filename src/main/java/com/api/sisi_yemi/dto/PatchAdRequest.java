@@ -0,0 +1,38 @@
+package com.api.sisi_yemi.dto;
+
+import com.api.sisi_yemi.model.UserAd;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+// Only non-null fields are written; version, when sent, must match the stored ad
+@Data
+public class PatchAdRequest {
+    @Size(min = 1, max = 200)
+    private String title;
+
+    private String description;
+
+    @PositiveOrZero
+    private Double price;
+
+    private String category;
+    private String location;
+    private String condition;
+    private List<UserAd.ImageData> images;
+    private UserAd.AdStatus status;
+
+    private Long version;
+
+    public boolean isEmpty() {
+        return title == null && description == null && price == null && category == null
+                && location == null && condition == null && images == null && status == null;
+    }
+
+    // The fields UserAd.dedupeKey is built from
+    public boolean touchesDedupeKey() {
+        return title != null || price != null || category != null || status != null;
+    }
+}
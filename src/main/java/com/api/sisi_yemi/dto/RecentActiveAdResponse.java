@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Getter;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
 
 @Builder(toBuilder = true)
@@ -25,4 +26,22 @@ public class RecentActiveAdResponse {
     private Instant dateSold;
     private ProfilePreview seller;
     private Instant favoritedAt;
+
+    public static RecentActiveAdResponse fromEntity(UserAd ad) {
+        return RecentActiveAdResponse.builder()
+                .id(ad.getId() != null ? ad.getId() : "unknown")
+                .title(ad.getTitle() != null ? ad.getTitle() : "No Title")
+                .price(ad.getPrice())
+                .category(ad.getCategory() != null ? ad.getCategory() : "Uncategorized")
+                .description(ad.getDescription() != null ? ad.getDescription() : "")
+                .location(ad.getLocation() != null ? ad.getLocation() : "Unknown Location")
+                .condition(ad.getCondition() != null ? ad.getCondition() : "Unknown")
+                .images(ad.getImages() != null ? ad.getImages() : Collections.emptyList())
+                .views(ad.getViews())
+                .messages(ad.getMessages())
+                .datePosted(ad.getDatePosted() != null ? ad.getDatePosted() : Instant.now())
+                .status(UserAd.AdStatus.valueOf(ad.getStatus() != null ? ad.getStatus().name() : "UNKNOWN"))
+                .dateSold(ad.getDateSold())
+                .build();
+    }
 }
@@ -0,0 +1,24 @@
+package com.api.sisi_yemi.dto;
+
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class SavedSearchRequest {
+    @Size(max = 100)
+    private String name;
+
+    @Size(max = 200)
+    private String query;
+
+    private String category;
+    private String location;
+    private String condition;
+
+    @PositiveOrZero
+    private Double minPrice;
+
+    @PositiveOrZero
+    private Double maxPrice;
+}
@@ -0,0 +1,30 @@
+package com.api.sisi_yemi.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+// The slice of a seller's profile shown next to their ads
+@Builder(toBuilder = true)
+@Getter
+public class SellerSummary {
+    private String userId;
+    private String name;
+    private String avatarUrl;
+    private double rating;
+    private double reviews;
+    private int itemsSold;
+    private double responseRate;
+    private String joinDate;
+    private long activeListingCount;
+
+    public ProfilePreview toPreview() {
+        return ProfilePreview.builder()
+                .name(name)
+                .avatarUrl(avatarUrl)
+                .rating(rating)
+                .itemsSold(itemsSold)
+                .responseRate(responseRate)
+                .joinDate(joinDate)
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.api.sisi_yemi.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Builder(toBuilder = true)
+@Getter
+public class TrendingAdResponse {
+    private String id;
+    private String title;
+    private Double price;
+    private String category;
+    private String location;
+    private String image;
+    private Instant datePosted;
+    private Double score;
+}
@@ -21,6 +21,7 @@ public class UserAdResponse {
     private String location;
     private String condition;
     private String description;
+    private Long version;
 
     public static UserAdResponse fromEntity(UserAd userAd) {
         UserAdResponse response = new UserAdResponse();
@@ -37,6 +38,7 @@ public class UserAdResponse {
         response.setLocation(userAd.getLocation());
         response.setCondition(userAd.getCondition());
         response.setDescription(userAd.getDescription());
+        response.setVersion(userAd.getVersion());
         return response;
     }
 }
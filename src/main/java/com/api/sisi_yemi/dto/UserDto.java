@@ -1,5 +1,6 @@
 package com.api.sisi_yemi.dto;
 
+import com.api.sisi_yemi.model.User;
 import lombok.Data;
 
 @Data
@@ -9,4 +10,14 @@ public class UserDto {
     private String avatar;
     private boolean verified;
     private double rating;
+
+    public static UserDto fromEntity(User user) {
+        var dto = new UserDto();
+        dto.setId(user.getId());
+        dto.setName(user.getName());
+        dto.setAvatar(user.getAvatarUrl());
+        dto.setVerified(user.isEmailVerified());
+        dto.setRating(user.getRating());
+        return dto;
+    }
 }
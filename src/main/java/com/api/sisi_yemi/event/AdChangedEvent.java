@@ -0,0 +1,34 @@
+package com.api.sisi_yemi.event;
+
+import com.api.sisi_yemi.model.UserAd;
+
+/**
+ * Published after an ad has been written. {@code previous} is null for a new ad and
+ * {@code current} is null once the ad has been deleted.
+ */
+public record AdChangedEvent(UserAd previous, UserAd current) {
+
+    public static AdChangedEvent created(UserAd ad) {
+        return new AdChangedEvent(null, ad);
+    }
+
+    public static AdChangedEvent updated(UserAd previous, UserAd current) {
+        return new AdChangedEvent(previous, current);
+    }
+
+    public static AdChangedEvent deleted(UserAd ad) {
+        return new AdChangedEvent(ad, null);
+    }
+
+    public boolean isDeleted() {
+        return current == null;
+    }
+
+    public String adId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+
+    public String userId() {
+        return current != null ? current.getUserId() : previous.getUserId();
+    }
+}
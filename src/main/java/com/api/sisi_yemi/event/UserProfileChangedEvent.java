@@ -0,0 +1,7 @@
+package com.api.sisi_yemi.event;
+
+/**
+ * Published after a user's profile fields have been written or the user has been deleted.
+ */
+public record UserProfileChangedEvent(String userId) {
+}
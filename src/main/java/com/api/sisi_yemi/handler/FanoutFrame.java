@@ -0,0 +1,63 @@
+package com.api.sisi_yemi.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A broadcast encoded once and shared by every recipient. The only per-recipient part is one
+ * integer field (the unread count), which is spliced between the pre-encoded bytes on either
+ * side of it, so a recipient costs a small array copy rather than a serialisation.
+ */
+final class FanoutFrame {
+
+    // Jackson escapes control characters inside strings, so this byte can only be the marker
+    private static final byte MARKER = 0x01;
+
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    private FanoutFrame(byte[] prefix, byte[] suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Encodes {@code payload} with {@code slot} as the per-recipient field of the object found by
+     * following {@code path} from the root; the payload's own value for it, if any, is replaced.
+     */
+    static FanoutFrame of(ObjectMapper objectMapper, Object payload, String slot, String... path)
+            throws JsonProcessingException {
+        ObjectNode root = objectMapper.valueToTree(payload);
+        ObjectNode target = root;
+        for (String field : path) {
+            target = (ObjectNode) target.get(field);
+        }
+        target.remove(slot);
+        target.putRawValue(slot, new RawValue(new String(new byte[]{MARKER}, StandardCharsets.US_ASCII)));
+
+        byte[] encoded = objectMapper.writeValueAsBytes(root);
+        int at = indexOf(encoded, MARKER);
+        return new FanoutFrame(Arrays.copyOfRange(encoded, 0, at), Arrays.copyOfRange(encoded, at + 1, encoded.length));
+    }
+
+    byte[] forValue(int value) {
+        byte[] digits = Integer.toString(value).getBytes(StandardCharsets.US_ASCII);
+        byte[] frame = new byte[prefix.length + digits.length + suffix.length];
+        System.arraycopy(prefix, 0, frame, 0, prefix.length);
+        System.arraycopy(digits, 0, frame, prefix.length, digits.length);
+        System.arraycopy(suffix, 0, frame, prefix.length + digits.length, suffix.length);
+        return frame;
+    }
+
+    private static int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) return i;
+        }
+        throw new IllegalStateException("Slot marker missing from encoded frame");
+    }
+}
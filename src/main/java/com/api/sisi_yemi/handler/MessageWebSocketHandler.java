@@ -1,33 +1,45 @@
 package com.api.sisi_yemi.handler;
 
 import com.api.sisi_yemi.dto.MessageDto;
+import com.api.sisi_yemi.dto.MessageHistoryPage;
+import com.api.sisi_yemi.messaging.BusFrame;
+import com.api.sisi_yemi.messaging.MessageBus;
+import com.api.sisi_yemi.service.ConversationStateCache;
 import com.api.sisi_yemi.service.MessageService;
 import com.api.sisi_yemi.util.token.JwtTokenProvider;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class MessageWebSocketHandler extends TextWebSocketHandler {
+public class MessageWebSocketHandler extends TextWebSocketHandler implements MessageBus.Endpoint {
 
     private final MessageService messageService;
     private final JwtTokenProvider jwtTokenProvider;
     private final ObjectMapper objectMapper;
-
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, List<WebSocketSession>> userSessions = new ConcurrentHashMap<>();
+    private final OutboundSessionFactory outboundSessionFactory;
+    // Only wrapped sessions are registered, so no thread ever writes to a raw session
+    private final WebSocketSessionRegistry sessionRegistry;
+    // Broadcasts reach other instances' sessions through the bus; replies to a request do not
+    private final MessageBus messageBus;
+
+    @PostConstruct
+    void bindMessageBus() {
+        messageBus.bind(this);
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
@@ -52,11 +64,12 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
             return;
         }
 
-        sessions.put(session.getId(), session);
-        userSessions.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(session);
-
+        OutboundSession outbound = outboundSessionFactory.wrap(session);
         session.getAttributes().put("userId", userId);
-        session.sendMessage(new TextMessage("✅ WebSocket connected as user: " + userId));
+        sessionRegistry.register(userId, outbound);
+        messageBus.userConnected(userId);
+
+        outbound.send(new TextMessage("✅ WebSocket connected as user: " + userId), OutboundSession.Kind.CHAT);
     }
 
     @Override
@@ -66,6 +79,8 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
             session.close(CloseStatus.TLS_HANDSHAKE_FAILURE.withReason("User not authenticated."));
             return;
         }
+        OutboundSession outbound = sessionRegistry.find(session.getId());
+        if (outbound == null) return;
 
         try {
             JsonNode json = objectMapper.readTree(message.getPayload());
@@ -74,7 +89,7 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
             if ("PING".equals(action)) {
                 Map<String, String> pongPayload = new HashMap<>();
                 pongPayload.put("action", "PONG");
-                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(pongPayload)));
+                outbound.send(new TextMessage(objectMapper.writeValueAsString(pongPayload)), OutboundSession.Kind.PRESENCE);
                 return;
             }
 
@@ -105,53 +120,83 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
                     broadcastUnreadCountUpdate(conversationId);
                 }
                 case "initial-load" -> {
-                    List<MessageDto> messages = messageService.getMessages(conversationId, userId);
-                    session.sendMessage(new TextMessage(objectMapper.writeValueAsString(messages)));
+                    // Latest window by default; "before"/"after" page further like the REST endpoint
+                    LocalDateTime before = json.hasNonNull("before") ? LocalDateTime.parse(json.get("before").asText()) : null;
+                    LocalDateTime after = json.hasNonNull("after") ? LocalDateTime.parse(json.get("after").asText()) : null;
+                    int limit = json.hasNonNull("limit") ? json.get("limit").asInt() : MessageService.DEFAULT_HISTORY_LIMIT;
+                    MessageHistoryPage messages = messageService.getMessages(conversationId, userId, before, after, limit);
+                    outbound.send(new TextMessage(objectMapper.writeValueAsString(messages)), OutboundSession.Kind.CHAT);
                 }
-                default -> session.sendMessage(new TextMessage("❌ Unknown message type: " + action));
+                default -> outbound.send(new TextMessage("❌ Unknown message type: " + action), OutboundSession.Kind.CHAT);
             }
         } catch (Exception e) {
-            session.sendMessage(new TextMessage("❌ Error: " + e.getMessage()));
+            outbound.send(new TextMessage("❌ Error: " + e.getMessage()), OutboundSession.Kind.CHAT);
         }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session.getId());
+        sessionRegistry.unregister(session.getId());
 
-        userSessions.forEach((userId, sessionList) ->
-                sessionList.removeIf(s -> s.getId().equals(session.getId()))
-        );
+        String userId = (String) session.getAttributes().get("userId");
+        if (userId != null && !sessionRegistry.hasSessions(userId)) {
+            messageBus.userDisconnected(userId);
+        }
     }
 
-    public void sendMessageToUser(String userId, Object payload) {
-        List<WebSocketSession> userSessionList = userSessions.get(userId);
-        if (userSessionList == null) return;
+    @Override
+    public void deliver(BusFrame frame) {
+        Collection<OutboundSession> userSessionList = sessionRegistry.sessionsOf(frame.userId());
+        if (userSessionList.isEmpty()) return;
+
+        OutboundSession.Kind kind = frame.presence() ? OutboundSession.Kind.PRESENCE : OutboundSession.Kind.CHAT;
+        TextMessage message = new TextMessage(frame.payload());
+        // Only enqueues: each session's buffer is written out on the send executor
+        for (OutboundSession session : userSessionList) {
+            if (session.isOpen()) {
+                session.send(message, kind);
+            }
+        }
+    }
 
+    // Drain tasks block inside the send, so a session stuck there is caught by this sweep
+    @Scheduled(fixedDelayString = "${websocket.outbound.timeout-check-ms:1000}")
+    public void checkSendTimeouts() {
+        sessionRegistry.sessions().forEach(OutboundSession::checkSendTimeout);
+    }
+
+    @Override
+    public Collection<String> connectedUserIds() {
+        return sessionRegistry.userIds();
+    }
+
+    public void sendMessageToUser(String userId, Object payload) {
         try {
-            String json = objectMapper.writeValueAsString(payload);
-            for (WebSocketSession session : userSessionList) {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(json));
-                }
-            }
+            messageBus.publish(new BusFrame(userId, objectMapper.writeValueAsBytes(payload), false));
         } catch (Exception e) {
             log.error("WebSocket send error", e);
         }
     }
 
+    // The frame is encoded once; each member only gets their own unread count spliced in
+    private void fanOut(String conversationId, Map<String, Object> payload, OutboundSession.Kind kind,
+                        String... unreadPath) throws Exception {
+        ConversationStateCache.State state = messageService.getConversationState(conversationId);
+        FanoutFrame frame = FanoutFrame.of(objectMapper, payload, "unread", unreadPath);
+
+        for (String userId : state.memberIds()) {
+            messageBus.publish(new BusFrame(userId, frame.forValue(state.unreadFor(userId)),
+                    kind == OutboundSession.Kind.PRESENCE));
+        }
+    }
+
     private void broadcastMessage(String conversationId, String action, MessageDto message) {
         try {
-            List<String> userIds = messageService.getParticipantUserIds(conversationId);
-
-            for (String userId : userIds) {
-                Map<String, Object> payload = new HashMap<>();
-                message.setUnread(messageService.getUnreadCount(conversationId, userId));
-                payload.put("action", action);
-                payload.put("message", message);
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("action", action);
+            payload.put("message", message);
 
-                sendMessageToUser(userId, payload);
-            }
+            fanOut(conversationId, payload, OutboundSession.Kind.CHAT, "message");
         } catch (Exception e) {
             log.error("Failed to broadcast {} message: {}", action, message.getId(), e);
         }
@@ -159,17 +204,12 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
 
     private void broadcastDelete(String conversationId, String messageId) {
         try {
-            List<String> userIds = messageService.getParticipantUserIds(conversationId);
-
-            for (String userId : userIds) {
-                Map<String, Object> payload = new HashMap<>();
-                payload.put("action", "delete");
-                payload.put("messageId", messageId);
-                payload.put("conversationId", conversationId);
-                payload.put("unread", messageService.getUnreadCount(conversationId, userId));
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("action", "delete");
+            payload.put("messageId", messageId);
+            payload.put("conversationId", conversationId);
 
-                sendMessageToUser(userId, payload);
-            }
+            fanOut(conversationId, payload, OutboundSession.Kind.CHAT);
         } catch (Exception e) {
             log.error("Failed to broadcast message deletion: {}", messageId, e);
         }
@@ -177,16 +217,12 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
 
     private void broadcastUnreadCountUpdate(String conversationId) {
         try {
-            List<String> userIds = messageService.getParticipantUserIds(conversationId);
-
-            for (String userId : userIds) {
-                Map<String, Object> payload = new HashMap<>();
-                payload.put("action", "unread-count-update");
-                payload.put("conversationId", conversationId);
-                payload.put("unread", messageService.getUnreadCount(conversationId, userId));
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("action", "unread-count-update");
+            payload.put("conversationId", conversationId);
 
-                sendMessageToUser(userId, payload);
-            }
+            // Superseded by the next update, so it may be shed under backpressure
+            fanOut(conversationId, payload, OutboundSession.Kind.PRESENCE);
         } catch (Exception e) {
             log.error("Failed to broadcast unread count update for conversation {}", conversationId, e);
         }
@@ -0,0 +1,193 @@
+package com.api.sisi_yemi.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe, bounded sending for one session, after Spring's
+ * {@code ConcurrentWebSocketSessionDecorator}. Publishers only enqueue: the buffer is written out
+ * by a drain task on the shared send executor, at most one per session at a time, so a slow
+ * client blocks its own drain and never the thread that published to it.
+ * <p>
+ * The send time limit is enforced by {@link #checkSendTimeout()}, which the handler calls from a
+ * timer, and the buffer limit on every enqueue. Unlike the Spring decorator the overflow policy
+ * depends on what is queued. Presence frames are superseded by later ones and are dropped oldest
+ * first; chat frames are never dropped, so a buffer still over its limit without presence frames
+ * to shed closes the session. Sessions whose sends keep running slow are closed as well.
+ */
+@Slf4j
+final class OutboundSession extends WebSocketSessionDecorator {
+
+    enum Kind { PRESENCE, CHAT }
+
+    // Deliberately not a record: removal from the buffer must be by identity
+    private static final class Pending {
+        private final TextMessage message;
+        private final Kind kind;
+
+        private Pending(TextMessage message, Kind kind) {
+            this.message = message;
+            this.kind = kind;
+        }
+    }
+
+    private final OutboundSessionFactory.Limits limits;
+    private final OutboundSessionFactory.Meters meters;
+    private final Executor sendExecutor;
+
+    private final Queue<Pending> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferSize = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Non-zero while a send is in progress
+    private volatile long sendStartTime;
+    private volatile boolean closing;
+
+    // Set while a drain task is queued or running
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean evicted = new AtomicBoolean();
+    private final Lock limitLock = new ReentrantLock();
+
+    // Consecutive sends slower than the threshold; only touched by the drain task
+    private int slowSends;
+
+    OutboundSession(WebSocketSession delegate, OutboundSessionFactory.Limits limits,
+                    OutboundSessionFactory.Meters meters, Executor sendExecutor) {
+        super(delegate);
+        this.limits = limits;
+        this.meters = meters;
+        this.sendExecutor = sendExecutor;
+    }
+
+    void send(TextMessage message, Kind kind) {
+        if (closing) return;
+
+        buffer.add(new Pending(message, kind));
+        meters.queued(bufferSize.addAndGet(message.getPayloadLength()));
+
+        checkBufferLimit();
+        scheduleDrain();
+    }
+
+    // Called from a timer, since the drain task itself is the thread stuck in the send
+    void checkSendTimeout() {
+        long started = sendStartTime;
+        if (!closing && started != 0 && System.nanoTime() - started > limits.sendTimeLimitNanos()) {
+            evict("send-timeout");
+        }
+    }
+
+    // Whatever is sent directly still has to go through the buffer to stay serialised
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            send(text, Kind.CHAT);
+        } else {
+            throw new IllegalArgumentException("Only text messages are sent on this session");
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        closing = true;
+        super.close(status);
+    }
+
+    private void scheduleDrain() {
+        if (closing || buffer.isEmpty() || !draining.compareAndSet(false, true)) return;
+        try {
+            sendExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            evict("send-rejected");
+        }
+    }
+
+    private void drain() {
+        try {
+            Pending next;
+            while (!closing && (next = buffer.poll()) != null) {
+                bufferSize.addAndGet(-next.message.getPayloadLength());
+
+                long started = System.nanoTime();
+                sendStartTime = started;
+                getDelegate().sendMessage(next.message);
+                long took = System.nanoTime() - started;
+                sendStartTime = 0;
+
+                meters.sent(took);
+                slowSends = took > limits.slowSendNanos() ? slowSends + 1 : 0;
+                if (slowSends >= limits.maxSlowSends()) {
+                    evict("slow-consumer");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            sendStartTime = 0;
+            if (!closing) {
+                log.warn("Failed to send to WebSocket session {}: {}", getId(), e.getMessage());
+            }
+            evict("send-failure");
+        } finally {
+            draining.set(false);
+        }
+        // A frame enqueued after the last poll but before draining was cleared has no task yet
+        scheduleDrain();
+    }
+
+    private void checkBufferLimit() {
+        if (closing || bufferSize.get() <= limits.bufferSizeLimit() || !limitLock.tryLock()) return;
+        try {
+            dropOldestPresence();
+            if (bufferSize.get() > limits.bufferSizeLimit()) {
+                evict("buffer-overflow");
+            }
+        } finally {
+            limitLock.unlock();
+        }
+    }
+
+    private void dropOldestPresence() {
+        Iterator<Pending> oldestFirst = buffer.iterator();
+        while (bufferSize.get() > limits.bufferSizeLimit() && oldestFirst.hasNext()) {
+            Pending pending = oldestFirst.next();
+            // remove() only succeeds for the one thread that takes the entry, drain task included
+            if (pending.kind == Kind.PRESENCE && buffer.remove(pending)) {
+                bufferSize.addAndGet(-pending.message.getPayloadLength());
+                dropped.incrementAndGet();
+                meters.dropped();
+            }
+        }
+    }
+
+    private void evict(String reason) {
+        if (closing || !evicted.compareAndSet(false, true)) return;
+        closing = true;
+
+        log.warn("Evicting WebSocket session {} ({}): {} bytes buffered, {} frames dropped",
+                getId(), reason, bufferSize.get(), dropped.get());
+        meters.evicted(reason);
+        buffer.clear();
+        bufferSize.set(0);
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Failed to close evicted WebSocket session {}", getId(), e);
+        }
+    }
+}
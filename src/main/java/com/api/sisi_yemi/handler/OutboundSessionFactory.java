@@ -0,0 +1,79 @@
+package com.api.sisi_yemi.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps registered WebSocket sessions in {@link OutboundSession}s sharing one set of limits and
+ * meters. Queue depth is recorded per session on every enqueue, so the summary's max and
+ * percentiles show how far behind the slowest sessions are without a meter per session.
+ */
+@Component
+public class OutboundSessionFactory {
+
+    record Limits(long sendTimeLimitNanos, int bufferSizeLimit, long slowSendNanos, int maxSlowSends) {}
+
+    static final class Meters {
+        private final MeterRegistry meterRegistry;
+        private final DistributionSummary queuedBytes;
+        private final Timer sendTime;
+        private final Counter dropped;
+
+        private Meters(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            this.queuedBytes = DistributionSummary.builder("websocket.outbound.queue.bytes")
+                    .baseUnit("bytes")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.sendTime = Timer.builder("websocket.outbound.send")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.dropped = meterRegistry.counter("websocket.outbound.dropped");
+        }
+
+        void queued(int bufferedBytes) {
+            queuedBytes.record(bufferedBytes);
+        }
+
+        void sent(long nanos) {
+            sendTime.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        void dropped() {
+            dropped.increment();
+        }
+
+        void evicted(String reason) {
+            meterRegistry.counter("websocket.outbound.evicted", "reason", reason).increment();
+        }
+    }
+
+    private final Limits limits;
+    private final Meters meters;
+    private final ExecutorService websocketSendExecutor;
+
+    public OutboundSessionFactory(MeterRegistry meterRegistry,
+                                  ExecutorService websocketSendExecutor,
+                                  @Value("${websocket.outbound.send-time-limit-ms:10000}") long sendTimeLimitMs,
+                                  @Value("${websocket.outbound.buffer-size-limit:524288}") int bufferSizeLimit,
+                                  @Value("${websocket.outbound.slow-send-ms:1000}") long slowSendMs,
+                                  @Value("${websocket.outbound.max-slow-sends:5}") int maxSlowSends) {
+        this.limits = new Limits(Duration.ofMillis(sendTimeLimitMs).toNanos(), bufferSizeLimit,
+                Duration.ofMillis(slowSendMs).toNanos(), maxSlowSends);
+        this.meters = new Meters(meterRegistry);
+        this.websocketSendExecutor = websocketSendExecutor;
+    }
+
+    OutboundSession wrap(WebSocketSession session) {
+        return new OutboundSession(session, limits, meters, websocketSendExecutor);
+    }
+}
@@ -0,0 +1,87 @@
+package com.api.sisi_yemi.handler;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sessions on this instance, by id and by user. The sessionId -> userId reverse map makes a
+ * disconnect a constant-time removal, and a user's set is created and dropped inside
+ * {@code compute} on that user's key, so a connect racing the last disconnect can never add
+ * to a set that is being discarded.
+ */
+@Component
+public class WebSocketSessionRegistry {
+
+    private final Map<String, OutboundSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, String> sessionUsers = new ConcurrentHashMap<>();
+    private final Map<String, Set<OutboundSession>> userSessions = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connectedSessions = new AtomicInteger();
+    private final AtomicInteger connectedUsers = new AtomicInteger();
+
+    public WebSocketSessionRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("websocket.sessions.connected", connectedSessions, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("websocket.users.connected", connectedUsers, AtomicInteger::get).register(meterRegistry);
+    }
+
+    void register(String userId, OutboundSession session) {
+        userSessions.compute(userId, (id, userSet) -> {
+            if (userSet == null) {
+                userSet = ConcurrentHashMap.newKeySet();
+                connectedUsers.incrementAndGet();
+            }
+            userSet.add(session);
+            return userSet;
+        });
+        sessionUsers.put(session.getId(), userId);
+        if (sessions.put(session.getId(), session) == null) {
+            connectedSessions.incrementAndGet();
+        }
+    }
+
+    void unregister(String sessionId) {
+        OutboundSession session = sessions.remove(sessionId);
+        String userId = sessionUsers.remove(sessionId);
+        if (session == null || userId == null) return;
+
+        connectedSessions.decrementAndGet();
+        userSessions.computeIfPresent(userId, (id, userSet) -> {
+            userSet.remove(session);
+            if (!userSet.isEmpty()) return userSet;
+            connectedUsers.decrementAndGet();
+            return null;
+        });
+    }
+
+    // Null once the session has been unregistered
+    OutboundSession find(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    // A live view; empty when the user has no session on this instance
+    Collection<OutboundSession> sessionsOf(String userId) {
+        Set<OutboundSession> userSet = userSessions.get(userId);
+        return userSet != null ? userSet : Set.of();
+    }
+
+    boolean hasSessions(String userId) {
+        return userSessions.containsKey(userId);
+    }
+
+    // Every registered session, as a live view
+    Collection<OutboundSession> sessions() {
+        return sessions.values();
+    }
+
+    // Users with at least one session on this instance
+    Collection<String> userIds() {
+        return userSessions.keySet();
+    }
+}
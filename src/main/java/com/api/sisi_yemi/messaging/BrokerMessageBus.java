@@ -0,0 +1,183 @@
+package com.api.sisi_yemi.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Routes frames between instances through a {@link MessageBroker}. Each instance listens on its
+ * own channel and records itself in the node set of every user connected to it. Published frames
+ * are queued and flushed in batches: one directory lookup for all recipients in the batch, then
+ * one broker message per target instance. Frames for users connected here skip the broker.
+ * <p>
+ * Directory entries are re-asserted periodically, which repairs any left stale by a connect and
+ * disconnect of the same user racing each other. A frame routed to an instance that no longer
+ * holds the user is simply dropped there.
+ */
+@Slf4j
+public class BrokerMessageBus implements MessageBus {
+
+    private static final String NODE_CHANNEL = "ws:node:";
+    private static final String USER_NODES = "ws:user:";
+
+    private final MessageBroker broker;
+    private final int maxBatchSize;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Queue<BusFrame> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Lock flushLock = new ReentrantLock();
+
+    private volatile Endpoint endpoint;
+
+    private final Counter batches;
+    private final Counter forwarded;
+    private final Counter undeliverable;
+
+    public BrokerMessageBus(MessageBroker broker, MeterRegistry meterRegistry, int maxBatchSize) {
+        this.broker = broker;
+        this.maxBatchSize = maxBatchSize;
+
+        this.batches = meterRegistry.counter("messaging.bus.batches");
+        this.forwarded = meterRegistry.counter("messaging.bus.forwarded");
+        this.undeliverable = meterRegistry.counter("messaging.bus.undeliverable");
+    }
+
+    @Override
+    public void bind(Endpoint endpoint) {
+        this.endpoint = endpoint;
+        broker.subscribe(NODE_CHANNEL + nodeId, this::receive);
+    }
+
+    @Override
+    public void publish(BusFrame frame) {
+        pending.add(frame);
+        if (pendingCount.incrementAndGet() >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void userConnected(String userId) {
+        broker.addMember(USER_NODES + userId, nodeId);
+    }
+
+    @Override
+    public void userDisconnected(String userId) {
+        broker.removeMember(USER_NODES + userId, nodeId);
+    }
+
+    @Scheduled(fixedDelayString = "${messaging.bus.flush-interval-ms:10}")
+    public void flush() {
+        if (pending.isEmpty() || !flushLock.tryLock()) return;
+        try {
+            List<BusFrame> batch = new ArrayList<>();
+            BusFrame frame;
+            while (batch.size() < maxBatchSize && (frame = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                batch.add(frame);
+            }
+            route(batch);
+        } catch (Exception e) {
+            log.error("Failed to route a batch of WebSocket frames", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${messaging.bus.presence-refresh-ms:30000}")
+    public void refreshPresence() {
+        Endpoint bound = endpoint;
+        if (bound == null) return;
+        bound.connectedUserIds().forEach(this::userConnected);
+    }
+
+    @PreDestroy
+    public void leave() {
+        Endpoint bound = endpoint;
+        if (bound == null) return;
+        bound.connectedUserIds().forEach(this::userDisconnected);
+    }
+
+    private void route(List<BusFrame> batch) throws IOException {
+        Set<String> directoryKeys = batch.stream()
+                .map(frame -> USER_NODES + frame.userId())
+                .collect(Collectors.toSet());
+        Map<String, Set<String>> nodesByUser = broker.members(directoryKeys);
+
+        Map<String, List<BusFrame>> byNode = new HashMap<>();
+        for (BusFrame frame : batch) {
+            Set<String> nodes = nodesByUser.getOrDefault(USER_NODES + frame.userId(), Set.of());
+            if (nodes.isEmpty()) {
+                undeliverable.increment();
+                continue;
+            }
+            nodes.forEach(node -> byNode.computeIfAbsent(node, n -> new ArrayList<>()).add(frame));
+        }
+
+        for (Map.Entry<String, List<BusFrame>> entry : byNode.entrySet()) {
+            if (entry.getKey().equals(nodeId)) {
+                entry.getValue().forEach(this::deliverLocally);
+            } else {
+                broker.publish(NODE_CHANNEL + entry.getKey(), encode(entry.getValue()));
+                batches.increment();
+                forwarded.increment(entry.getValue().size());
+            }
+        }
+    }
+
+    private void receive(byte[] message) {
+        try {
+            decode(message).forEach(this::deliverLocally);
+        } catch (IOException e) {
+            log.error("Dropping malformed batch of {} bytes from the message broker", message.length, e);
+        }
+    }
+
+    private void deliverLocally(BusFrame frame) {
+        Endpoint bound = endpoint;
+        if (bound != null) {
+            bound.deliver(frame);
+        }
+    }
+
+    // count, then (userId, presence, length, payload) per frame
+    private static byte[] encode(List<BusFrame> frames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(frames.size());
+            for (BusFrame frame : frames) {
+                out.writeUTF(frame.userId());
+                out.writeBoolean(frame.presence());
+                out.writeInt(frame.payload().length);
+                out.write(frame.payload());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<BusFrame> decode(byte[] message) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            int count = in.readInt();
+            List<BusFrame> frames = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String userId = in.readUTF();
+                boolean presence = in.readBoolean();
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                frames.add(new BusFrame(userId, payload, presence));
+            }
+            return frames;
+        }
+    }
+}
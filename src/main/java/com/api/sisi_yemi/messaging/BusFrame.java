@@ -0,0 +1,4 @@
+package com.api.sisi_yemi.messaging;
+
+// An encoded WebSocket frame for every session of one user; presence frames may be shed under load
+public record BusFrame(String userId, byte[] payload, boolean presence) {}
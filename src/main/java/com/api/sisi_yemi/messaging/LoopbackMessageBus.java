@@ -0,0 +1,20 @@
+package com.api.sisi_yemi.messaging;
+
+// For a single instance: every recipient is local, so frames go straight to the endpoint
+public class LoopbackMessageBus implements MessageBus {
+
+    private volatile Endpoint endpoint;
+
+    @Override
+    public void bind(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void publish(BusFrame frame) {
+        Endpoint bound = endpoint;
+        if (bound != null) {
+            bound.deliver(frame);
+        }
+    }
+}
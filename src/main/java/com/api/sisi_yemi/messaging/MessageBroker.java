@@ -0,0 +1,25 @@
+package com.api.sisi_yemi.messaging;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * What {@link BrokerMessageBus} needs from a shared broker: fire-and-forget channels, and named
+ * sets for the user -> instance directory. Redis pub/sub plus sets is the obvious fit. With
+ * {@code messaging.bus.type=broker} a bean of this type is required; startup fails without one.
+ */
+public interface MessageBroker {
+
+    void publish(String channel, byte[] message);
+
+    void subscribe(String channel, Consumer<byte[]> listener);
+
+    void addMember(String set, String member);
+
+    void removeMember(String set, String member);
+
+    // Sets that do not exist are absent from the result
+    Map<String, Set<String>> members(Collection<String> sets);
+}
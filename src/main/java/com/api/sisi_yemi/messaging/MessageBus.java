@@ -0,0 +1,28 @@
+package com.api.sisi_yemi.messaging;
+
+import java.util.Collection;
+
+/**
+ * Carries WebSocket frames to whichever instance holds the recipient's sessions. The local
+ * WebSocket endpoint binds itself once and is then handed every frame for a user connected to
+ * this instance. Connects and disconnects are reported so that implementations spanning several
+ * instances can keep their routing current.
+ */
+public interface MessageBus {
+
+    interface Endpoint {
+        void deliver(BusFrame frame);
+
+        Collection<String> connectedUserIds();
+    }
+
+    void bind(Endpoint endpoint);
+
+    void publish(BusFrame frame);
+
+    default void userConnected(String userId) {
+    }
+
+    default void userDisconnected(String userId) {
+    }
+}
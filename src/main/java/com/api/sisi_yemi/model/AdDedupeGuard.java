@@ -0,0 +1,32 @@
+package com.api.sisi_yemi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+import java.time.Instant;
+
+// Uniqueness marker for UserAd.dedupeKey, written in the same transaction as the ad
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDbBean
+public class AdDedupeGuard {
+
+    // Written once every legacy ad has a guard; ids are dedupe keys, which start with a user id, so never collide
+    public static final String BACKFILL_COMPLETE_ID = "#backfill-complete";
+
+    private String id;
+    private String adId;
+    private String userId;
+    private Instant createdAt;
+
+    @DynamoDbPartitionKey
+    public String getId() {
+        return id;
+    }
+}
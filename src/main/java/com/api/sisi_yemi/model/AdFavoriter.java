@@ -0,0 +1,34 @@
+package com.api.sisi_yemi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+import java.time.Instant;
+
+// Reverse entry of a Favorite (adId -> userId), written in the same transaction as the favourite
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDbBean
+public class AdFavoriter {
+
+    private String adId;
+    private String userId;
+    private Instant favoritedAt;
+
+    @DynamoDbPartitionKey
+    public String getAdId() {
+        return adId;
+    }
+
+    @DynamoDbSortKey
+    public String getUserId() {
+        return userId;
+    }
+}
@@ -33,6 +33,10 @@ public class Conversation {
     private int participantUnread;  // Unread count for participant
     private int sellerUnread;      // Unread count for seller
 
+    // Read watermarks: everything up to this timestamp has been seen by that side
+    private LocalDateTime participantLastReadAt;
+    private LocalDateTime sellerLastReadAt;
+
     // Helper method to get unread count for a user
     public int getUnreadForUser(String userId) {
         if (userId.equals(participantId)) {
@@ -43,6 +47,15 @@ public class Conversation {
         return 0;
     }
 
+    public LocalDateTime getLastReadAtForUser(String userId) {
+        if (userId.equals(participantId)) {
+            return participantLastReadAt;
+        } else if (userId.equals(sellerId)) {
+            return sellerLastReadAt;
+        }
+        return null;
+    }
+
     @DynamoDbAttribute("lastMessageId")
     public String getLastMessageId() {
         return lastMessageId;
@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
 
 import java.time.Instant;
 
@@ -26,4 +28,19 @@ public class Favorite {
     public String getId() {
         return id;
     }
+
+    @DynamoDbSecondaryPartitionKey(indexNames = {"userId-index", "userId-adId-index", "userId-favoritedAt-index"})
+    public String getUserId() {
+        return userId;
+    }
+
+    @DynamoDbSecondarySortKey(indexNames = "userId-adId-index")
+    public String getAdId() {
+        return adId;
+    }
+
+    @DynamoDbSecondarySortKey(indexNames = "userId-favoritedAt-index")
+    public Instant getFavoritedAt() {
+        return favoritedAt;
+    }
 }
@@ -4,15 +4,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
 
 @Data
 @NoArgsConstructor
@@ -21,13 +17,14 @@ import java.util.Set;
 @DynamoDbBean
 public class Message {
 
+    public static final String DELETED_CONTENT = "[Message deleted]";
+
     private String conversationId;
     private String messageId;
     private String senderId;
     private String content;
     private String status;
     private LocalDateTime timestamp;
-    private Set<String> readBy;
     private boolean isDeleted;
     private boolean edited;
     private LocalDateTime editedAt;
@@ -44,29 +41,9 @@ public class Message {
         return timestamp;
     }
 
-    @DynamoDbAttribute("readBy")
-    public Set<String> getReadBy() {
-        return (readBy == null || readBy.isEmpty()) ? null : readBy;
-    }
-
-    public void setReadBy(Set<String> readBy) {
-        this.readBy = (readBy == null || readBy.isEmpty()) ? null : readBy;
-    }
-
     public void softDelete() {
         this.isDeleted = true;
-        this.content = "[Message deleted]";
-    }
-
-    public boolean isReadBy(String userId) {
-        return readBy != null && readBy.contains(userId);
-    }
-
-    public void markReadBy(String userId) {
-        if (readBy == null) {
-            readBy = new HashSet<>();
-        }
-        readBy.add(userId);
+        this.content = DELETED_CONTENT;
     }
 }
 
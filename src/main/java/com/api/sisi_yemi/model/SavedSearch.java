@@ -0,0 +1,41 @@
+package com.api.sisi_yemi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+
+import java.time.Instant;
+
+// A standing query; every predicate left null matches any ad
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDbBean
+public class SavedSearch {
+
+    private String id;
+    private String userId;
+    private String name;
+    private String query;
+    private String category;
+    private String location;
+    private String condition;
+    private Double minPrice;
+    private Double maxPrice;
+    private Instant createdAt;
+
+    @DynamoDbPartitionKey
+    public String getId() {
+        return id;
+    }
+
+    @DynamoDbSecondaryPartitionKey(indexNames = "userId-index")
+    public String getUserId() {
+        return userId;
+    }
+}
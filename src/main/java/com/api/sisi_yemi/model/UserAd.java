@@ -8,7 +8,7 @@ import java.time.Instant;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @DynamoDbBean
@@ -30,6 +30,8 @@ public class UserAd {
     private String location;
     private String condition;
     private String description;
+    // Bumped by every write; clients send it back on PATCH to detect lost updates
+    private Long version;
 
     // === PRIMARY KEY ===
     @DynamoDbPartitionKey
@@ -79,10 +81,14 @@ public class UserAd {
 
     public void computeDedupeKey() {
         if (userId != null && title != null && category != null && status != null) {
-            this.dedupeKey = userId + "#" + title + "#" + price + "#" + category + "#" + status.name();
+            this.dedupeKey = dedupeKeyOf(userId, title, price, category, status);
         }
     }
 
+    public static String dedupeKeyOf(String userId, String title, double price, String category, AdStatus status) {
+        return userId + "#" + title + "#" + price + "#" + category + "#" + status.name();
+    }
+
     // === Nested Class ===
     @Data
     @Builder
@@ -0,0 +1,83 @@
+package com.api.sisi_yemi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+import java.time.Instant;
+
+// Per-user dashboard aggregate, kept current with ADD deltas from every ad write
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDbBean
+public class UserAdStats {
+
+    // The owning userId
+    private String id;
+
+    private long activeCount;
+    private long soldCount;
+    private long draftCount;
+    private long totalCount;
+
+    private long totalViews;
+    private long totalMessages;
+    private double totalEarnings;
+
+    // Bumped by every delta so reconciliation can detect concurrent writes
+    private long version;
+    private Instant reconciledAt;
+    // Set by every delta, so a rebuild can tell whether userId-index may still lag behind it
+    private Instant updatedAt;
+
+    @DynamoDbPartitionKey
+    public String getId() {
+        return id;
+    }
+
+    public record Delta(long active, long sold, long draft, long total,
+                        long views, long messages, double earnings) {
+
+        public static final Delta ZERO = new Delta(0, 0, 0, 0, 0, 0, 0);
+
+        // What a single ad contributes to its owner's stats
+        public static Delta of(UserAd ad) {
+            if (ad == null) return ZERO;
+
+            UserAd.AdStatus status = ad.getStatus();
+            return new Delta(
+                    status == UserAd.AdStatus.ACTIVE ? 1 : 0,
+                    status == UserAd.AdStatus.SOLD ? 1 : 0,
+                    status == UserAd.AdStatus.DRAFT ? 1 : 0,
+                    1,
+                    ad.getViews(),
+                    ad.getMessages(),
+                    status == UserAd.AdStatus.SOLD ? ad.getPrice() : 0);
+        }
+
+        public static Delta views(long views) {
+            return new Delta(0, 0, 0, 0, views, 0, 0);
+        }
+
+        public Delta plus(Delta other) {
+            return new Delta(active + other.active, sold + other.sold, draft + other.draft,
+                    total + other.total, views + other.views, messages + other.messages,
+                    earnings + other.earnings);
+        }
+
+        public Delta negate() {
+            return new Delta(-active, -sold, -draft, -total, -views, -messages, -earnings);
+        }
+
+        public boolean isZero() {
+            // Not equals(ZERO): record equality tells -0.0 apart from 0.0
+            return active == 0 && sold == 0 && draft == 0 && total == 0
+                    && views == 0 && messages == 0 && earnings == 0;
+        }
+    }
+}
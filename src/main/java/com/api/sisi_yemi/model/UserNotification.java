@@ -0,0 +1,44 @@
+package com.api.sisi_yemi.model;
+
+import com.api.sisi_yemi.dto.AdNotification;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+import java.time.Instant;
+
+// A listing alert kept for the user's inbox; ids sort by creation time, expiresAt is the table's TTL
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDbBean
+public class UserNotification {
+
+    private String userId;
+    private String id;
+    private AdNotification.Type type;
+    private String adId;
+    private String title;
+    private double price;
+    private Double previousPrice;
+    private String imageUrl;
+    private String savedSearchId;
+    private String savedSearchName;
+    private Instant createdAt;
+    private long expiresAt;
+
+    @DynamoDbPartitionKey
+    public String getUserId() {
+        return userId;
+    }
+
+    @DynamoDbSortKey
+    public String getId() {
+        return id;
+    }
+}
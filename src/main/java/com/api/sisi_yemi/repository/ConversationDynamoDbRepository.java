@@ -1,10 +1,13 @@
 package com.api.sisi_yemi.repository;
 
 import com.api.sisi_yemi.model.Conversation;
+import com.api.sisi_yemi.model.Message;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 @Repository
 public interface ConversationDynamoDbRepository {
@@ -13,4 +16,14 @@ public interface ConversationDynamoDbRepository {
     Conversation save(Conversation conversation);
 
     Optional<Conversation> findById(String id);
+
+    boolean markRead(Conversation conversation, String userId, LocalDateTime readAt);
+
+    boolean markRead(Conversation conversation, String userId, LocalDateTime readAt, int unread, String lastMessageId);
+
+    OptionalInt recordMessage(Conversation conversation, Message message, String lastMessage);
+
+    boolean updateLastMessageText(String conversationId, String messageId, String lastMessage);
+
+    boolean replaceLastMessage(String conversationId, String replacedMessageId, Message last, String lastMessage);
 }
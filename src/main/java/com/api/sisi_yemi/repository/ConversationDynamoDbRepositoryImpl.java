@@ -1,14 +1,22 @@
 package com.api.sisi_yemi.repository;
 
+import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.model.Conversation;
+import com.api.sisi_yemi.model.Message;
 import com.api.sisi_yemi.util.DynamoDbUtilHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Component;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.*;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -18,6 +26,7 @@ import java.util.stream.Collectors;
 public class ConversationDynamoDbRepositoryImpl implements ConversationDynamoDbRepository {
 
     private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final DynamoDbClient dynamoDbClient;
 
     private DynamoDbTable<Conversation> table() {
         return dynamoDbUtilHelper.getConversationTable().getRawTable();
@@ -107,4 +116,191 @@ public class ConversationDynamoDbRepositoryImpl implements ConversationDynamoDbR
         }
     }
 
+    /**
+     * Moves the user's read watermark up to {@code readAt} and clears their unread count in one
+     * conditional write. Returns false when the watermark was already there, e.g. because another
+     * device marked the conversation read first, or when a message newer than {@code readAt} has
+     * landed, since clearing the count would mark that message read too.
+     */
+    @Override
+    public boolean markRead(Conversation conversation, String userId, LocalDateTime readAt) {
+        String role = role(conversation, userId);
+        try {
+            dynamoDbClient.updateItem(r -> r
+                    .tableName(table().tableName())
+                    .key(key(conversation.getId()))
+                    .updateExpression("SET #lastReadAt = :readAt, #unread = :zero")
+                    .conditionExpression("#member = :userId AND (attribute_not_exists(#lastReadAt) OR #lastReadAt < :readAt)"
+                            + " AND (attribute_not_exists(#timestamp) OR #timestamp <= :readAt)")
+                    .expressionAttributeNames(Map.of(
+                            "#lastReadAt", role + "LastReadAt",
+                            "#unread", role + "Unread",
+                            "#member", role + "Id",
+                            "#timestamp", "timestamp"))
+                    .expressionAttributeValues(Map.of(
+                            ":readAt", AttributeValue.fromS(readAt.toString()),
+                            ":zero", AttributeValue.fromN("0"),
+                            ":userId", AttributeValue.fromS(userId))));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Moves the user's read watermark up to {@code readAt} and sets their unread count to the
+     * messages received since, provided {@code lastMessageId} (null for none) is still the last
+     * message. Returns false when the watermark was already there or a message landed meanwhile.
+     */
+    @Override
+    public boolean markRead(Conversation conversation, String userId, LocalDateTime readAt,
+                            int unread, String lastMessageId) {
+        String role = role(conversation, userId);
+        Map<String, AttributeValue> values = new HashMap<>(Map.of(
+                ":readAt", AttributeValue.fromS(readAt.toString()),
+                ":unread", AttributeValue.fromN(Integer.toString(unread)),
+                ":userId", AttributeValue.fromS(userId)));
+        String lastMessageCondition = "attribute_not_exists(#lastMessageId)";
+        if (lastMessageId != null) {
+            values.put(":lastMessageId", AttributeValue.fromS(lastMessageId));
+            lastMessageCondition = "#lastMessageId = :lastMessageId";
+        }
+
+        String condition = "#member = :userId AND (attribute_not_exists(#lastReadAt) OR #lastReadAt < :readAt)"
+                + " AND " + lastMessageCondition;
+        try {
+            dynamoDbClient.updateItem(r -> r
+                    .tableName(table().tableName())
+                    .key(key(conversation.getId()))
+                    .updateExpression("SET #lastReadAt = :readAt, #unread = :unread")
+                    .conditionExpression(condition)
+                    .expressionAttributeNames(Map.of(
+                            "#lastReadAt", role + "LastReadAt",
+                            "#unread", role + "Unread",
+                            "#member", role + "Id",
+                            "#lastMessageId", "lastMessageId"))
+                    .expressionAttributeValues(values));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Updates the summary and bumps the receiver's unread count atomically, without a read.
+     * Returns the receiver's new unread count, or empty when the sender is talking to themselves.
+     */
+    @Override
+    public OptionalInt recordMessage(Conversation conversation, Message message, String lastMessage) {
+        String senderId = message.getSenderId();
+        boolean toSeller = senderId.equals(conversation.getParticipantId()) && !senderId.equals(conversation.getSellerId());
+        boolean toParticipant = senderId.equals(conversation.getSellerId()) && !senderId.equals(conversation.getParticipantId());
+
+        Map<String, String> names = new HashMap<>(Map.of(
+                "#lastMessage", "lastMessage",
+                "#lastMessageId", "lastMessageId",
+                "#timestamp", "timestamp"));
+        Map<String, AttributeValue> values = new HashMap<>(Map.of(
+                ":lastMessage", AttributeValue.fromS(lastMessage),
+                ":lastMessageId", AttributeValue.fromS(message.getMessageId()),
+                ":timestamp", AttributeValue.fromS(message.getTimestamp().toString())));
+        String expression = "SET #lastMessage = :lastMessage, #lastMessageId = :lastMessageId, #timestamp = :timestamp";
+        if (toSeller || toParticipant) {
+            names.put("#unread", toSeller ? "sellerUnread" : "participantUnread");
+            values.put(":one", AttributeValue.fromN("1"));
+            expression += " ADD #unread :one";
+        }
+
+        String updateExpression = expression;
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(r -> r
+                    .tableName(table().tableName())
+                    .key(key(conversation.getId()))
+                    .updateExpression(updateExpression)
+                    .conditionExpression("attribute_exists(id)")
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .returnValues(ReturnValue.UPDATED_NEW));
+            if (!names.containsKey("#unread")) return OptionalInt.empty();
+            return OptionalInt.of(Integer.parseInt(response.attributes().get(names.get("#unread")).n()));
+        } catch (ConditionalCheckFailedException e) {
+            throw new ApiException("Conversation not found", HttpStatus.NOT_FOUND, "CONVERSATION_NOT_FOUND");
+        }
+    }
+
+    // Rewrites the preview only while messageId is still the conversation's last message
+    @Override
+    public boolean updateLastMessageText(String conversationId, String messageId, String lastMessage) {
+        try {
+            dynamoDbClient.updateItem(r -> r
+                    .tableName(table().tableName())
+                    .key(key(conversationId))
+                    .updateExpression("SET #lastMessage = :lastMessage")
+                    .conditionExpression("#lastMessageId = :messageId")
+                    .expressionAttributeNames(Map.of(
+                            "#lastMessage", "lastMessage",
+                            "#lastMessageId", "lastMessageId"))
+                    .expressionAttributeValues(Map.of(
+                            ":lastMessage", AttributeValue.fromS(lastMessage),
+                            ":messageId", AttributeValue.fromS(messageId))));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Points the summary at {@code last}, or clears it when {@code last} is null, provided
+     * {@code replacedMessageId} is still the last message. Returns false when a newer message
+     * got there first, in which case the summary is already right.
+     */
+    @Override
+    public boolean replaceLastMessage(String conversationId, String replacedMessageId, Message last, String lastMessage) {
+        Map<String, String> names = new HashMap<>(Map.of(
+                "#lastMessage", "lastMessage",
+                "#lastMessageId", "lastMessageId",
+                "#timestamp", "timestamp"));
+        Map<String, AttributeValue> values = new HashMap<>(Map.of(
+                ":replaced", AttributeValue.fromS(replacedMessageId)));
+        String expression;
+        if (last != null) {
+            values.put(":lastMessageId", AttributeValue.fromS(last.getMessageId()));
+            values.put(":timestamp", AttributeValue.fromS(last.getTimestamp().toString()));
+            expression = "SET #lastMessageId = :lastMessageId, #timestamp = :timestamp";
+            if (lastMessage != null) {
+                values.put(":lastMessage", AttributeValue.fromS(lastMessage));
+                expression += ", #lastMessage = :lastMessage";
+            } else {
+                expression += " REMOVE #lastMessage";
+            }
+        } else {
+            values.put(":timestamp", AttributeValue.fromS(LocalDateTime.now().toString()));
+            expression = "SET #timestamp = :timestamp REMOVE #lastMessage, #lastMessageId";
+        }
+
+        String updateExpression = expression;
+        try {
+            dynamoDbClient.updateItem(r -> r
+                    .tableName(table().tableName())
+                    .key(key(conversationId))
+                    .updateExpression(updateExpression)
+                    .conditionExpression("#lastMessageId = :replaced")
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, AttributeValue> key(String conversationId) {
+        return Map.of("id", AttributeValue.fromS(conversationId));
+    }
+
+    // Attribute prefix of the side the user is on
+    private static String role(Conversation conversation, String userId) {
+        if (userId.equals(conversation.getParticipantId())) return "participant";
+        if (userId.equals(conversation.getSellerId())) return "seller";
+        throw new IllegalArgumentException("User " + userId + " is not part of conversation " + conversation.getId());
+    }
 }
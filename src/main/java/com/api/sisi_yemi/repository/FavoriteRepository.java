@@ -1,23 +1,50 @@
 package com.api.sisi_yemi.repository;
 
+import com.api.sisi_yemi.exception.ApiException;
+import com.api.sisi_yemi.model.AdFavoriter;
 import com.api.sisi_yemi.model.Favorite;
 import com.api.sisi_yemi.util.DynamoDbUtilHelper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionCheck;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
+@Slf4j
 public class FavoriteRepository {
 
     private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final DynamoDbClient dynamoDbClient;
     private static final String USER_AD_INDEX = "userId-adId-index";
-    private static final String USER_INDEX = "userId-index";
+    private static final String USER_FAVORITED_AT_INDEX = "userId-favoritedAt-index";
+
+    public record FavoritePage(List<Favorite> favorites, String nextCursor) {}
+
+    private DynamoDbTable<Favorite> table() {
+        return dynamoDbUtilHelper.getFavoriteTable().getRawTable();
+    }
+
+    private DynamoDbTable<AdFavoriter> favoriterTable() {
+        return dynamoDbUtilHelper.getAdFavoriterTable().getRawTable();
+    }
 
     public Optional<Favorite> findByUserIdAndAdId(String userId, String adId) {
         List<Favorite> results = dynamoDbUtilHelper.getFavoriteTable()
@@ -27,23 +54,149 @@ public class FavoriteRepository {
     }
 
     public void deleteByUserIdAndAdId(String userId, String adId) {
-        findByUserIdAndAdId(userId, adId)
-                .ifPresent(fav -> dynamoDbUtilHelper.getFavoriteTable().deleteById(fav.getId()));
+        findByUserIdAndAdId(userId, adId).ifPresent(fav -> dynamoDbClient.transactWriteItems(r -> r.transactItems(
+                TransactWriteItem.builder()
+                        .delete(Delete.builder()
+                                .tableName(table().tableName())
+                                .key(Map.of("id", AttributeValue.fromS(fav.getId())))
+                                .build())
+                        .build(),
+                TransactWriteItem.builder()
+                        .delete(Delete.builder()
+                                .tableName(favoriterTable().tableName())
+                                .key(favoriterKey(adId, userId))
+                                .build())
+                        .build())));
+    }
+
+    /**
+     * Pages through the ids of the users who favourited {@code adId}, straight from the
+     * reverse index rather than a scan of the favourites table.
+     */
+    public void forEachFavoriterPage(String adId, int pageSize, Consumer<List<String>> pageConsumer) {
+        favoriterTable().query(QueryEnhancedRequest.builder()
+                        .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(adId).build()))
+                        .attributesToProject("userId")
+                        .limit(pageSize)
+                        .build())
+                .stream()
+                .map(page -> page.items().stream().map(AdFavoriter::getUserId).toList())
+                .filter(userIds -> !userIds.isEmpty())
+                .forEach(pageConsumer);
     }
 
-    public List<Favorite> findByUserIdOrderByFavoritedAtDesc(String userId) {
-        List<Favorite> favorites = dynamoDbUtilHelper.getFavoriteTable()
-                .queryByGsi(USER_INDEX, "userId", userId);
+    /**
+     * Newest-first page of a user's favourites. {@code cursor} is the opaque
+     * {@code nextCursor} of the previous page, or null for the first one.
+     */
+    public FavoritePage findPageByUserId(String userId, int limit, String cursor) {
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(userId).build()))
+                .scanIndexForward(false)
+                .limit(limit);
+        if (cursor != null && !cursor.isBlank()) {
+            request.exclusiveStartKey(decodeCursor(userId, cursor));
+        }
+
+        Iterator<Page<Favorite>> pages = dynamoDbUtilHelper.getFavoriteTable().getRawTable()
+                .index(USER_FAVORITED_AT_INDEX)
+                .query(request.build())
+                .iterator();
+        if (!pages.hasNext()) {
+            return new FavoritePage(List.of(), null);
+        }
 
-        return favorites.stream()
-                .sorted(Comparator.comparing(Favorite::getFavoritedAt).reversed())
-                .collect(Collectors.toList());
+        Page<Favorite> page = pages.next();
+        List<Favorite> favorites = page.items();
+        String nextCursor = page.lastEvaluatedKey() != null && !favorites.isEmpty()
+                ? encodeCursor(favorites.get(favorites.size() - 1))
+                : null;
+        return new FavoritePage(favorites, nextCursor);
     }
 
     public void save(Favorite favorite) {
         if (favorite.getId() == null) {
             favorite.setId(UUID.randomUUID().toString());
         }
-        dynamoDbUtilHelper.getFavoriteTable().save(favorite);
+        dynamoDbClient.transactWriteItems(r -> r.transactItems(
+                TransactWriteItem.builder()
+                        .put(Put.builder()
+                                .tableName(table().tableName())
+                                .item(table().tableSchema().itemToMap(favorite, true))
+                                .build())
+                        .build(),
+                TransactWriteItem.builder()
+                        .put(Put.builder()
+                                .tableName(favoriterTable().tableName())
+                                .item(favoriterTable().tableSchema().itemToMap(toFavoriter(favorite), true))
+                                .build())
+                        .build()));
+    }
+
+    /**
+     * Writes reverse entries for favourites saved before the reverse index existed. Each put is
+     * checked against the favourite in the same transaction, so one removed since the scan is not
+     * brought back; puts are idempotent, so reruns are harmless.
+     */
+    public int backfillReverseIndex() {
+        int written = 0;
+        for (Favorite favorite : table().scan().items()) {
+            if (favorite.getAdId() == null || favorite.getUserId() == null) continue;
+            try {
+                dynamoDbClient.transactWriteItems(r -> r.transactItems(
+                        TransactWriteItem.builder()
+                                .conditionCheck(ConditionCheck.builder()
+                                        .tableName(table().tableName())
+                                        .key(Map.of("id", AttributeValue.fromS(favorite.getId())))
+                                        .conditionExpression("attribute_exists(id)")
+                                        .build())
+                                .build(),
+                        TransactWriteItem.builder()
+                                .put(Put.builder()
+                                        .tableName(favoriterTable().tableName())
+                                        .item(favoriterTable().tableSchema().itemToMap(toFavoriter(favorite), true))
+                                        .build())
+                                .build()));
+                written++;
+            } catch (TransactionCanceledException e) {
+                log.debug("Favourite {} removed during backfill", favorite.getId());
+            }
+        }
+        log.info("Backfilled {} reverse favourite entries", written);
+        return written;
+    }
+
+    private static AdFavoriter toFavoriter(Favorite favorite) {
+        return AdFavoriter.builder()
+                .adId(favorite.getAdId())
+                .userId(favorite.getUserId())
+                .favoritedAt(favorite.getFavoritedAt())
+                .build();
+    }
+
+    private static Map<String, AttributeValue> favoriterKey(String adId, String userId) {
+        return Map.of(
+                "adId", AttributeValue.fromS(adId),
+                "userId", AttributeValue.fromS(userId));
+    }
+
+    private static String encodeCursor(Favorite last) {
+        String raw = last.getFavoritedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, AttributeValue> decodeCursor(String userId, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            Instant favoritedAt = Instant.parse(raw.substring(0, separator));
+
+            return Map.of(
+                    "id", AttributeValue.fromS(raw.substring(separator + 1)),
+                    "userId", AttributeValue.fromS(userId),
+                    "favoritedAt", AttributeValue.fromS(favoritedAt.toString()));
+        } catch (RuntimeException e) {
+            throw new ApiException("Invalid cursor", HttpStatus.BAD_REQUEST, "INVALID_CURSOR");
+        }
     }
 }
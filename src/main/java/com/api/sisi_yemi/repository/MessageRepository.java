@@ -0,0 +1,228 @@
+package com.api.sisi_yemi.repository;
+
+import com.api.sisi_yemi.exception.ApiException;
+import com.api.sisi_yemi.model.Message;
+import com.api.sisi_yemi.util.DynamoDbUtilHelper;
+import com.api.sisi_yemi.util.MessageIds;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Repository
+@RequiredArgsConstructor
+public class MessageRepository {
+
+    // Evaluated items per page when looking for the latest live message; most are not deleted
+    private static final int LATEST_PAGE_SIZE = 10;
+
+    private static final Expression NOT_DELETED = Expression.builder()
+            .expression("attribute_not_exists(#deleted) OR #deleted = :false")
+            .expressionNames(Map.of("#deleted", "deleted"))
+            .expressionValues(Map.of(":false", AttributeValue.fromBool(false)))
+            .build();
+
+    private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final DynamoDbClient dynamoDbClient;
+
+    // Oldest first; hasMore says whether further messages exist in the direction that was read
+    public record MessageSlice(List<Message> messages, boolean hasMore) {}
+
+    // changed is false when the message already had the requested content
+    public record EditResult(Message message, boolean changed) {}
+
+    private DynamoDbTable<Message> table() {
+        return dynamoDbUtilHelper.getMessageTable().getRawTable();
+    }
+
+    /**
+     * Up to {@code limit} non-deleted messages strictly before {@code before}, or strictly after
+     * {@code after}, or the latest ones when neither is given. Reads walk the {@code timestamp}
+     * sort key away from the cursor, so only the requested window is read.
+     */
+    public MessageSlice findSlice(String conversationId, LocalDateTime before, LocalDateTime after, int limit) {
+        boolean newer = after != null;
+        QueryConditional range;
+        if (before != null) {
+            range = QueryConditional.sortLessThan(key(conversationId, before));
+        } else if (after != null) {
+            range = QueryConditional.sortGreaterThan(key(conversationId, after));
+        } else {
+            range = QueryConditional.keyEqualTo(Key.builder().partitionValue(conversationId).build());
+        }
+
+        Iterator<Page<Message>> pages = table().query(QueryEnhancedRequest.builder()
+                        .queryConditional(range)
+                        .filterExpression(NOT_DELETED)
+                        .scanIndexForward(newer)
+                        .limit(limit + 1)
+                        .build())
+                .iterator();
+
+        // Reading one past the limit tells whether another page exists without a second round trip
+        List<Message> messages = new ArrayList<>(limit + 1);
+        while (messages.size() <= limit && pages.hasNext()) {
+            messages.addAll(pages.next().items());
+        }
+
+        boolean hasMore = messages.size() > limit;
+        if (hasMore) {
+            messages = new ArrayList<>(messages.subList(0, limit));
+        }
+        if (!newer) {
+            Collections.reverse(messages);
+        }
+        return new MessageSlice(messages, hasMore);
+    }
+
+    private static Key key(String conversationId, LocalDateTime timestamp) {
+        return Key.builder().partitionValue(conversationId).sortValue(timestamp.toString()).build();
+    }
+
+    /**
+     * The newest message that is not deleted: one reverse query that stops at the first match,
+     * fetching further pages only when the newest ones are all deleted.
+     */
+    public Optional<Message> findLatest(String conversationId) {
+        return table().query(QueryEnhancedRequest.builder()
+                        .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(conversationId).build()))
+                        .filterExpression(NOT_DELETED)
+                        .scanIndexForward(false)
+                        .limit(LATEST_PAGE_SIZE)
+                        .build())
+                .items()
+                .stream()
+                .findFirst();
+    }
+
+    public Optional<Message> findById(String conversationId, String messageId) {
+        Optional<LocalDateTime> timestamp = MessageIds.timestampOf(messageId);
+        if (timestamp.isPresent()) {
+            return Optional.ofNullable(table().getItem(key(conversationId, timestamp.get())))
+                    .filter(message -> messageId.equals(message.getMessageId()));
+        }
+
+        // Messages from before time-ordered ids can only be found by searching their conversation
+        return table().query(QueryEnhancedRequest.builder()
+                        .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(conversationId).build()))
+                        .filterExpression(Expression.builder()
+                                .expression("#messageId = :messageId")
+                                .expressionNames(Map.of("#messageId", "messageId"))
+                                .expressionValues(Map.of(":messageId", AttributeValue.fromS(messageId)))
+                                .build())
+                        .build())
+                .items()
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Replaces a message's content with one conditional UpdateItem on its key. Only the sender
+     * may edit; resending the current content is a no-op that writes nothing.
+     */
+    public EditResult edit(String conversationId, String messageId, String senderId,
+                           String content, LocalDateTime editedAt) {
+        LocalDateTime timestamp = timestampOf(conversationId, messageId);
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(r -> r
+                    .tableName(table().tableName())
+                    .key(rawKey(conversationId, timestamp))
+                    .updateExpression("SET #content = :content, #edited = :true, #editedAt = :editedAt")
+                    .conditionExpression("#messageId = :messageId AND #senderId = :senderId"
+                            + " AND (attribute_not_exists(#content) OR #content <> :content)")
+                    .expressionAttributeNames(Map.of(
+                            "#content", "content",
+                            "#edited", "edited",
+                            "#editedAt", "editedAt",
+                            "#messageId", "messageId",
+                            "#senderId", "senderId"))
+                    .expressionAttributeValues(Map.of(
+                            ":content", AttributeValue.fromS(content),
+                            ":true", AttributeValue.fromBool(true),
+                            ":editedAt", AttributeValue.fromS(editedAt.toString()),
+                            ":messageId", AttributeValue.fromS(messageId),
+                            ":senderId", AttributeValue.fromS(senderId)))
+                    .returnValues(ReturnValue.ALL_NEW)
+                    .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD));
+            return new EditResult(table().tableSchema().mapToItem(response.attributes()), true);
+        } catch (ConditionalCheckFailedException e) {
+            Message stored = storedItem(e, messageId);
+            checkSender(stored, senderId, "You can only edit your own messages", "EDIT_NOT_ALLOWED");
+            return new EditResult(stored, false);
+        }
+    }
+
+    // Soft delete in one conditional UpdateItem; returns the message as it now stands
+    public Message softDelete(String conversationId, String messageId, String senderId) {
+        LocalDateTime timestamp = timestampOf(conversationId, messageId);
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(r -> r
+                    .tableName(table().tableName())
+                    .key(rawKey(conversationId, timestamp))
+                    .updateExpression("SET #deleted = :true, #content = :content")
+                    .conditionExpression("#messageId = :messageId AND #senderId = :senderId")
+                    .expressionAttributeNames(Map.of(
+                            "#deleted", "deleted",
+                            "#content", "content",
+                            "#messageId", "messageId",
+                            "#senderId", "senderId"))
+                    .expressionAttributeValues(Map.of(
+                            ":true", AttributeValue.fromBool(true),
+                            ":content", AttributeValue.fromS(Message.DELETED_CONTENT),
+                            ":messageId", AttributeValue.fromS(messageId),
+                            ":senderId", AttributeValue.fromS(senderId)))
+                    .returnValues(ReturnValue.ALL_NEW)
+                    .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD));
+            return table().tableSchema().mapToItem(response.attributes());
+        } catch (ConditionalCheckFailedException e) {
+            storedItem(e, messageId);
+            // The message exists, so it was the sender check that failed
+            throw new ApiException("You can only delete your own messages", HttpStatus.FORBIDDEN, "DELETE_NOT_ALLOWED");
+        }
+    }
+
+    // Derived from the id when possible; otherwise the legacy message has to be looked up
+    private LocalDateTime timestampOf(String conversationId, String messageId) {
+        return MessageIds.timestampOf(messageId)
+                .or(() -> findById(conversationId, messageId).map(Message::getTimestamp))
+                .orElseThrow(MessageRepository::notFound);
+    }
+
+    private Message storedItem(ConditionalCheckFailedException e, String messageId) {
+        Message stored = e.hasItem() ? table().tableSchema().mapToItem(e.item()) : null;
+        if (stored == null || !messageId.equals(stored.getMessageId())) {
+            throw notFound();
+        }
+        return stored;
+    }
+
+    private static void checkSender(Message stored, String senderId, String message, String code) {
+        if (!senderId.equals(stored.getSenderId())) {
+            throw new ApiException(message, HttpStatus.FORBIDDEN, code);
+        }
+    }
+
+    private static ApiException notFound() {
+        return new ApiException("Message not found", HttpStatus.NOT_FOUND, "MESSAGE_NOT_FOUND");
+    }
+
+    private static Map<String, AttributeValue> rawKey(String conversationId, LocalDateTime timestamp) {
+        return Map.of(
+                "conversationId", AttributeValue.fromS(conversationId),
+                "timestamp", AttributeValue.fromS(timestamp.toString()));
+    }
+}
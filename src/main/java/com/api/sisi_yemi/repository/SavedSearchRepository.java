@@ -0,0 +1,39 @@
+package com.api.sisi_yemi.repository;
+
+import com.api.sisi_yemi.model.SavedSearch;
+import com.api.sisi_yemi.util.DynamoDbUtilHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class SavedSearchRepository {
+
+    private static final String USER_INDEX = "userId-index";
+
+    private final DynamoDbUtilHelper dynamoDbUtilHelper;
+
+    public void save(SavedSearch search) {
+        dynamoDbUtilHelper.getSavedSearchTable().save(search);
+    }
+
+    public Optional<SavedSearch> findById(String id) {
+        return dynamoDbUtilHelper.getSavedSearchTable().getById(id);
+    }
+
+    public List<SavedSearch> findByUserId(String userId) {
+        return dynamoDbUtilHelper.getSavedSearchTable().queryByGsi(USER_INDEX, "userId", userId);
+    }
+
+    public void deleteById(String id) {
+        dynamoDbUtilHelper.getSavedSearchTable().deleteById(id);
+    }
+
+    public void forEach(Consumer<SavedSearch> consumer) {
+        dynamoDbUtilHelper.getSavedSearchTable().getRawTable().scan().items().forEach(consumer);
+    }
+}
@@ -1,33 +1,94 @@
 package com.api.sisi_yemi.repository;
 
+import com.api.sisi_yemi.dto.PatchAdRequest;
 import com.api.sisi_yemi.model.UserAd;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public interface UserAdDynamoDbRepository {
     void save(UserAd ad);
 
+    void update(UserAd previous, UserAd ad);
+
+    record PatchResult(UserAd previous, UserAd current) {}
+
+    /**
+     * Writes only the fields present in {@code patch} to an ad owned by {@code userId}. Edits
+     * that leave the dedupe key alone are a single conditional UpdateItem; the rest also move
+     * the dedupe guard and stats in one transaction.
+     */
+    PatchResult patch(String adId, String userId, PatchAdRequest patch);
+
+    void delete(UserAd ad);
+
+    // An ad, its dedupe guard and its owner's stats delta are three of the 100 actions a transaction allows
+    int MAX_ADS_PER_BATCH_DELETE = 33;
+
+    /**
+     * Deletes up to {@link #MAX_ADS_PER_BATCH_DELETE} ads, their dedupe guards and their owners' stats in
+     * one transaction. Ads already deleted by another request count as deleted without touching the stats
+     * again. Returns the ids of ads that could not be deleted mapped to the reason.
+     */
+    Map<String, String> deleteBatch(List<UserAd> ads);
+
     Optional<UserAd> findById(String id);
 
     List<UserAd> findByUserId(String userId);
 
+    record UserAdPage(List<UserAd> ads, String nextCursor) {}
+
+    /**
+     * One page of a user's ads from {@code userId-index}. {@code cursor} is the opaque
+     * {@code nextCursor} of the previous page, or null for the first one.
+     */
+    UserAdPage findPageByUserId(String userId, int limit, String cursor);
+
+    // Hands each DynamoDB page to the consumer as it arrives, without accumulating them
+    void forEachPageByUserId(String userId, int pageSize, Consumer<List<UserAd>> consumer);
+
     List<UserAd> findByUserIdAndStatus(String userId, UserAd.AdStatus status);
 
     List<UserAd> findRecentActiveAds(int limit);
 
-    long countByUserId(String userId);
+    // Where a newest-first walk of status-datePosted-index stopped
+    record DatePosition(Instant datePosted, String id) {
+        public static DatePosition of(UserAd ad) {
+            return new DatePosition(ad.getDatePosted(), ad.getId());
+        }
+    }
 
-    long countByUserIdAndStatus(String userId, UserAd.AdStatus status);
+    // {@code next} is null once the index has no more ads in the status
+    record DatedPage(List<UserAd> ads, DatePosition next) {}
+
+    /**
+     * Up to {@code limit} evaluated ads in {@code status}, newest first, starting just after
+     * {@code after} (null for the newest). The optional price bounds are applied server-side,
+     * so a page can come back short and still have a {@code next}.
+     */
+    DatedPage findPageByStatusNewestFirst(UserAd.AdStatus status, DatePosition after, int limit,
+                                          Double minPrice, Double maxPrice);
 
-    boolean existsDuplicate(String userId, String title, double price, String category, UserAd.AdStatus status);
+    void forEachPageByStatus(UserAd.AdStatus status, int pageSize, Consumer<List<UserAd>> consumer);
 
-    boolean existsDuplicateExceptId(String userId, String title, double price, String category, UserAd.AdStatus status, String excludedId);
+    long countByUserId(String userId);
+
+    long countByUserIdAndStatus(String userId, UserAd.AdStatus status);
 
     List<UserAd> findByStatus(String status, int limit, String lastEvaluatedId);
 
     void deleteById(String id);
 
+    /**
+     * Writes the missing guard items for ads created before guards existed, then records that
+     * the backfill completed so duplicate checks stop falling back to {@code dedupeKey-index}.
+     * Returns the number of guards created.
+     */
+    int backfillDedupeGuards();
+
 }
@@ -1,35 +1,402 @@
 package com.api.sisi_yemi.repository;
 
+import com.api.sisi_yemi.dto.PatchAdRequest;
+import com.api.sisi_yemi.exception.ApiException;
+import com.api.sisi_yemi.model.AdDedupeGuard;
 import com.api.sisi_yemi.model.UserAd;
+import com.api.sisi_yemi.model.UserAdStats;
+import com.api.sisi_yemi.util.DedupeKeyFilter;
 import com.api.sisi_yemi.util.DynamoDbUtilHelper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.*;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
+@Slf4j
 public class UserAdDynamoDbRepositoryImpl implements UserAdDynamoDbRepository {
 
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    private static final int MAX_BATCH_ATTEMPTS = 5;
+    private static final long BATCH_RETRY_BASE_DELAY_MS = 50;
+    private static final long BACKFILL_MARKER_RECHECK_MS = 60_000;
+    // What a full edit of an ad may change; counters and ownership are left to their own writers
+    private static final List<String> EDITABLE_ATTRIBUTES = List.of(
+            "title", "description", "price", "category", "location", "condition", "images", "status", "datePosted");
+    private static final String DUPLICATE_AD_MESSAGE = "Another active ad with the same title, price, and category already exists";
+
     private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final DynamoDbClient dynamoDbClient;
+    private final UserAdStatsRepository userAdStatsRepository;
+    private final DedupeKeyFilter dedupeKeyFilter;
+
+    // Until the backfill marker is seen, ads predating the guards are checked through dedupeKey-index
+    private volatile boolean guardsBackfilled;
+    private volatile long guardsBackfilledCheckedAt;
+
     private DynamoDbTable<UserAd> table() {
         return dynamoDbUtilHelper.getUserAdsTable().getRawTable();
     }
 
+    private DynamoDbTable<AdDedupeGuard> guardTable() {
+        return dynamoDbUtilHelper.getAdDedupeGuardTable().getRawTable();
+    }
+
     @Override
     public void save(UserAd ad) {
         ad.setDatePosted(Optional.ofNullable(ad.getDatePosted()).orElse(Instant.now()));
         ad.computeDedupeKey();
-        table().putItem(ad);
+        ad.setVersion(0L);
+
+        List<TransactWriteItem> writes = new ArrayList<>();
+        // Ids come from the client, so never let a create replace someone else's ad
+        writes.add(TransactWriteItem.builder()
+                .put(putAd(ad).put().toBuilder()
+                        .conditionExpression("attribute_not_exists(id)")
+                        .build())
+                .build());
+        if (guardKey(ad) != null) {
+            checkUnguardedDuplicate(ad);
+            writes.add(putGuard(ad));
+        }
+        writes.add(userAdStatsRepository.deltaWrite(ad.getUserId(), UserAdStats.Delta.of(ad)));
+
+        write(writes, "Duplicate active ad exists",
+                new ApiException("Ad already exists", HttpStatus.CONFLICT, "AD_ALREADY_EXISTS"));
+    }
+
+    // Writes only the edited fields, so counters maintained elsewhere (views, messages) are never overwritten
+    @Override
+    public void update(UserAd previous, UserAd ad) {
+        ad.setDatePosted(Optional.ofNullable(ad.getDatePosted()).orElse(Instant.now()));
+        ad.computeDedupeKey();
+
+        ad.setVersion(nextVersion(previous));
+
+        String previousKey = guardKey(previous);
+        String key = guardKey(ad);
+
+        List<String> attributes = new ArrayList<>(EDITABLE_ATTRIBUTES);
+        if (ad.getDedupeKey() != null) attributes.add("dedupeKey");
+        Update update = attributeUpdate(ad.getId(), previous.getUserId(), ad, attributes, true, previous.getVersion());
+
+        List<TransactWriteItem> writes = new ArrayList<>();
+        writes.add(TransactWriteItem.builder().update(update).build());
+        if (!Objects.equals(previousKey, key)) {
+            if (previousKey != null) writes.add(deleteGuard(previousKey, ad.getId()));
+            if (key != null) {
+                checkUnguardedDuplicate(ad);
+                writes.add(putGuard(ad));
+            }
+        }
+        UserAdStats.Delta delta = UserAdStats.Delta.of(ad).plus(UserAdStats.Delta.of(previous).negate());
+        if (!delta.isZero()) {
+            writes.add(userAdStatsRepository.deltaWrite(ad.getUserId(), delta));
+        }
+
+        if (writes.size() > 1) {
+            write(writes, DUPLICATE_AD_MESSAGE, versionConflict());
+            return;
+        }
+        try {
+            dynamoDbClient.updateItem(r -> r
+                    .tableName(update.tableName())
+                    .key(update.key())
+                    .updateExpression(update.updateExpression())
+                    .conditionExpression(update.conditionExpression())
+                    .expressionAttributeNames(update.expressionAttributeNames())
+                    .expressionAttributeValues(update.expressionAttributeValues()));
+        } catch (ConditionalCheckFailedException e) {
+            throw versionConflict();
+        }
+    }
+
+    @Override
+    public PatchResult patch(String adId, String userId, PatchAdRequest patch) {
+        if (!patch.touchesDedupeKey()) {
+            return patchInPlace(adId, userId, patch, patch.getVersion() != null, patch.getVersion());
+        }
+
+        // The guard and stats only move when a key field really changes, which takes the stored ad
+        UserAd previous = Optional.ofNullable(table().getItem(r -> r
+                        .key(Key.builder().partitionValue(adId).build())
+                        .consistentRead(true)))
+                .orElseThrow(() -> patchRejected(null, userId));
+        long storedVersion = Optional.ofNullable(previous.getVersion()).orElse(0L);
+        if (!previous.getUserId().equals(userId)
+                || (patch.getVersion() != null && patch.getVersion() != storedVersion)) {
+            throw patchRejected(previous, userId);
+        }
+
+        PatchAdRequest effective = withoutUnchangedKeyFields(patch, previous);
+        if (effective.isEmpty()) {
+            return new PatchResult(previous, previous);
+        }
+        if (!effective.touchesDedupeKey()) {
+            return patchInPlace(adId, userId, effective, true, previous.getVersion());
+        }
+        return patchWithGuard(previous, effective);
+    }
+
+    // One UpdateItem; the old image comes back with the write, so no read is needed
+    private PatchResult patchInPlace(String adId, String userId, PatchAdRequest patch,
+                                     boolean checkVersion, Long expectedVersion) {
+        Update update = patchUpdate(adId, userId, patch, checkVersion, expectedVersion, null);
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(r -> r
+                    .tableName(update.tableName())
+                    .key(update.key())
+                    .updateExpression(update.updateExpression())
+                    .conditionExpression(update.conditionExpression())
+                    .expressionAttributeNames(update.expressionAttributeNames())
+                    .expressionAttributeValues(update.expressionAttributeValues())
+                    .returnValues(ReturnValue.ALL_OLD)
+                    .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD));
+
+            UserAd previous = table().tableSchema().mapToItem(response.attributes());
+            UserAd current = applyPatch(previous, patch);
+            current.setVersion(nextVersion(previous));
+            return new PatchResult(previous, current);
+        } catch (ConditionalCheckFailedException e) {
+            throw patchRejected(e.hasItem() ? table().tableSchema().mapToItem(e.item()) : null, userId);
+        }
+    }
+
+    private PatchResult patchWithGuard(UserAd previous, PatchAdRequest patch) {
+        // Recompute rather than trust the stored key, which predates computeDedupeKey on old items
+        UserAd before = previous.toBuilder().build();
+        before.computeDedupeKey();
+        UserAd current = applyPatch(previous, patch);
+        current.computeDedupeKey();
+        current.setVersion(nextVersion(previous));
+
+        String previousKey = guardKey(before);
+        String key = guardKey(current);
+
+        List<TransactWriteItem> writes = new ArrayList<>();
+        writes.add(TransactWriteItem.builder()
+                .update(patchUpdate(previous.getId(), previous.getUserId(), patch, true, previous.getVersion(),
+                        current.getDedupeKey()))
+                .build());
+        if (!Objects.equals(previousKey, key)) {
+            if (previousKey != null) writes.add(deleteGuard(previousKey, previous.getId()));
+            if (key != null) {
+                checkUnguardedDuplicate(current);
+                writes.add(putGuard(current));
+            }
+        }
+        UserAdStats.Delta delta = UserAdStats.Delta.of(current).plus(UserAdStats.Delta.of(previous).negate());
+        if (!delta.isZero()) {
+            writes.add(userAdStatsRepository.deltaWrite(previous.getUserId(), delta));
+        }
+
+        write(writes, DUPLICATE_AD_MESSAGE, versionConflict());
+        return new PatchResult(previous, current);
+    }
+
+    private Update patchUpdate(String adId, String userId, PatchAdRequest patch,
+                               boolean checkVersion, Long expectedVersion, String dedupeKey) {
+        UserAd values = applyPatch(new UserAd(), patch);
+        values.setDedupeKey(dedupeKey);
+
+        List<String> attributes = new ArrayList<>();
+        if (patch.getTitle() != null) attributes.add("title");
+        if (patch.getDescription() != null) attributes.add("description");
+        if (patch.getPrice() != null) attributes.add("price");
+        if (patch.getCategory() != null) attributes.add("category");
+        if (patch.getLocation() != null) attributes.add("location");
+        if (patch.getCondition() != null) attributes.add("condition");
+        if (patch.getImages() != null) attributes.add("images");
+        if (patch.getStatus() != null) attributes.add("status");
+        if (dedupeKey != null) attributes.add("dedupeKey");
+
+        return attributeUpdate(adId, userId, values, attributes, checkVersion, expectedVersion);
+    }
+
+    // Sets the listed attributes from values (removing those that are null) and bumps the version
+    private Update attributeUpdate(String adId, String userId, UserAd values, List<String> attributes,
+                                   boolean checkVersion, Long expectedVersion) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> expressionValues = new HashMap<>();
+        List<String> sets = new ArrayList<>();
+        List<String> removes = new ArrayList<>();
+        for (String attribute : attributes) {
+            names.put("#" + attribute, attribute);
+            AttributeValue value = table().tableSchema().attributeValue(values, attribute);
+            if (value == null || Boolean.TRUE.equals(value.nul())) {
+                removes.add("#" + attribute);
+            } else {
+                expressionValues.put(":" + attribute, value);
+                sets.add("#" + attribute + " = :" + attribute);
+            }
+        }
+        names.put("#version", "version");
+        expressionValues.put(":zero", AttributeValue.fromN("0"));
+        expressionValues.put(":one", AttributeValue.fromN("1"));
+        sets.add("#version = if_not_exists(#version, :zero) + :one");
+
+        // A missing ad has no userId, so this also stops the update from creating one
+        names.put("#userId", "userId");
+        expressionValues.put(":userId", AttributeValue.fromS(userId));
+        String condition = "#userId = :userId";
+        if (checkVersion) {
+            VersionCondition unchanged = versionCondition(expectedVersion);
+            condition += " AND " + unchanged.expression();
+            expressionValues.putAll(unchanged.values());
+        }
+
+        String expression = "SET " + String.join(", ", sets)
+                + (removes.isEmpty() ? "" : " REMOVE " + String.join(", ", removes));
+        return Update.builder()
+                .tableName(table().tableName())
+                .key(Map.of("id", AttributeValue.fromS(adId)))
+                .updateExpression(expression)
+                .conditionExpression(condition)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(expressionValues)
+                .build();
+    }
+
+    private static UserAd applyPatch(UserAd base, PatchAdRequest patch) {
+        UserAd ad = base.toBuilder().build();
+        if (patch.getTitle() != null) ad.setTitle(patch.getTitle());
+        if (patch.getDescription() != null) ad.setDescription(patch.getDescription());
+        if (patch.getPrice() != null) ad.setPrice(patch.getPrice());
+        if (patch.getCategory() != null) ad.setCategory(patch.getCategory());
+        if (patch.getLocation() != null) ad.setLocation(patch.getLocation());
+        if (patch.getCondition() != null) ad.setCondition(patch.getCondition());
+        if (patch.getImages() != null) ad.setImages(patch.getImages());
+        if (patch.getStatus() != null) ad.setStatus(patch.getStatus());
+        return ad;
+    }
+
+    private static PatchAdRequest withoutUnchangedKeyFields(PatchAdRequest patch, UserAd stored) {
+        PatchAdRequest effective = new PatchAdRequest();
+        effective.setTitle(Objects.equals(patch.getTitle(), stored.getTitle()) ? null : patch.getTitle());
+        effective.setPrice(patch.getPrice() != null && patch.getPrice() == stored.getPrice() ? null : patch.getPrice());
+        effective.setCategory(Objects.equals(patch.getCategory(), stored.getCategory()) ? null : patch.getCategory());
+        effective.setStatus(patch.getStatus() == stored.getStatus() ? null : patch.getStatus());
+        effective.setDescription(patch.getDescription());
+        effective.setLocation(patch.getLocation());
+        effective.setCondition(patch.getCondition());
+        effective.setImages(patch.getImages());
+        effective.setVersion(patch.getVersion());
+        return effective;
+    }
+
+    private static long nextVersion(UserAd previous) {
+        return Optional.ofNullable(previous.getVersion()).orElse(0L) + 1;
+    }
+
+    // Ads written before versioning have no attribute, which counts as version 0
+    private static VersionCondition versionCondition(Long expectedVersion) {
+        Map<String, String> names = Map.of("#version", "version");
+        if (expectedVersion == null) {
+            return new VersionCondition("attribute_not_exists(#version)", names, Map.of());
+        }
+
+        Map<String, AttributeValue> values = Map.of(":expectedVersion", AttributeValue.fromN(Long.toString(expectedVersion)));
+        return expectedVersion == 0
+                ? new VersionCondition("(attribute_not_exists(#version) OR #version = :expectedVersion)", names, values)
+                : new VersionCondition("#version = :expectedVersion", names, values);
+    }
+
+    private static ApiException patchRejected(UserAd stored, String userId) {
+        if (stored == null) {
+            return new ApiException("Ad not found", HttpStatus.NOT_FOUND, "AD_NOT_FOUND");
+        }
+        if (!userId.equals(stored.getUserId())) {
+            return new ApiException("Not authorized to update this ad", HttpStatus.FORBIDDEN, "UNAUTHORIZED_OPERATION");
+        }
+        return versionConflict();
+    }
+
+    private static ApiException versionConflict() {
+        return new ApiException("The ad was changed by another request; reload it and try again",
+                HttpStatus.CONFLICT, "AD_VERSION_CONFLICT");
+    }
+
+    @Override
+    public void delete(UserAd ad) {
+        List<TransactWriteItem> writes = new ArrayList<>();
+        writes.add(deleteAd(ad.getId()));
+
+        // Recompute rather than trust the stored key, which predates computeDedupeKey on old items
+        UserAd current = ad.toBuilder().build();
+        current.computeDedupeKey();
+        String key = guardKey(current);
+        if (key != null) {
+            writes.add(deleteGuard(key, ad.getId()));
+        }
+        writes.add(userAdStatsRepository.deltaWrite(ad.getUserId(), UserAdStats.Delta.of(ad).negate()));
+
+        try {
+            write(writes, null, null);
+        } catch (TransactionCanceledException e) {
+            if (!CONDITIONAL_CHECK_FAILED.equals(e.cancellationReasons().get(0).code())) throw e;
+            log.debug("Ad {} was already deleted", ad.getId());
+        }
+    }
+
+    @Override
+    public Map<String, String> deleteBatch(List<UserAd> ads) {
+        if (ads.size() > MAX_ADS_PER_BATCH_DELETE) {
+            throw new IllegalArgumentException("At most " + MAX_ADS_PER_BATCH_DELETE + " ads per batch delete");
+        }
+
+        List<UserAd> remaining = new ArrayList<>(ads);
+        String reason = "Not deleted after " + MAX_BATCH_ATTEMPTS + " attempts";
+        try {
+            for (int attempt = 0; !remaining.isEmpty() && attempt < MAX_BATCH_ATTEMPTS; attempt++) {
+                List<TransactWriteItem> writes = batchDeleteWrites(remaining);
+                try {
+                    dynamoDbClient.transactWriteItems(r -> r.transactItems(writes));
+                    remaining.clear();
+                } catch (TransactionCanceledException e) {
+                    // An ad removed meanwhile by a single delete already had its stats applied; retry without it
+                    List<CancellationReason> reasons = e.cancellationReasons();
+                    Set<String> gone = new HashSet<>();
+                    for (int i = 0; i < remaining.size() && i < reasons.size(); i++) {
+                        if (CONDITIONAL_CHECK_FAILED.equals(reasons.get(i).code())) {
+                            gone.add(remaining.get(i).getId());
+                        }
+                    }
+                    if (gone.isEmpty()) {
+                        Thread.sleep(BATCH_RETRY_BASE_DELAY_MS << attempt);
+                    } else {
+                        log.debug("Ads {} were already deleted", gone);
+                        remaining.removeIf(ad -> gone.contains(ad.getId()));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reason = "Interrupted";
+        } catch (Exception e) {
+            log.error("Batch delete of {} ads failed", ads.size(), e);
+            reason = e.getMessage();
+        }
+
+        Map<String, String> failures = new HashMap<>();
+        for (UserAd ad : remaining) {
+            failures.put(ad.getId(), reason);
+        }
+        return failures;
     }
 
     @Override
@@ -43,19 +410,47 @@ public class UserAdDynamoDbRepositoryImpl implements UserAdDynamoDbRepository {
         return queryByIndex("userId-index", userId);
     }
 
+    @Override
+    public UserAdPage findPageByUserId(String userId, int limit, String cursor) {
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(userId).build()))
+                .limit(limit);
+        if (cursor != null && !cursor.isBlank()) {
+            request.exclusiveStartKey(Map.of(
+                    "id", AttributeValue.fromS(decodeCursor(cursor)),
+                    "userId", AttributeValue.fromS(userId)));
+        }
+
+        Iterator<Page<UserAd>> pages = table().index("userId-index").query(request.build()).iterator();
+        if (!pages.hasNext()) {
+            return new UserAdPage(List.of(), null);
+        }
+
+        Page<UserAd> page = pages.next();
+        Map<String, AttributeValue> lastKey = page.lastEvaluatedKey();
+        String nextCursor = lastKey != null && lastKey.containsKey("id")
+                ? encodeCursor(lastKey.get("id").s())
+                : null;
+        return new UserAdPage(page.items(), nextCursor);
+    }
+
+    @Override
+    public void forEachPageByUserId(String userId, int pageSize, Consumer<List<UserAd>> consumer) {
+        table().index("userId-index")
+                .query(r -> r
+                        .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(userId).build()))
+                        .limit(pageSize))
+                .forEach(page -> {
+                    if (!page.items().isEmpty()) consumer.accept(page.items());
+                });
+    }
+
     @Override
     public List<UserAd> findByUserIdAndStatus(String userId, UserAd.AdStatus status) {
-        DynamoDbIndex<UserAd> index = table().index("userId-status-index");
-
-        return index.query(r -> r
-                        .queryConditional(QueryConditional.keyEqualTo(
-                                Key.builder().partitionValue(userId).build()))
-                        .filterExpression(Expression.builder()
-                                .expression("#status = :statusVal")
-                                .expressionNames(Map.of("#status", "status"))
-                                .expressionValues(Map.of(
-                                        ":statusVal", AttributeValue.builder().s(status.name()).build()))
-                                .build()))
+        // status is the index's sort key, so this reads only the matching slice
+        return table().index("userId-status-index")
+                .query(r -> r.queryConditional(QueryConditional.keyEqualTo(
+                        Key.builder().partitionValue(userId).sortValue(status.name()).build())))
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .collect(Collectors.toList());
@@ -83,43 +478,69 @@ public class UserAdDynamoDbRepositoryImpl implements UserAdDynamoDbRepository {
     }
 
     @Override
-    public long countByUserId(String userId) {
-        return findByUserId(userId).size();
+    public DatedPage findPageByStatusNewestFirst(UserAd.AdStatus status, DatePosition after, int limit,
+                                                 Double minPrice, Double maxPrice) {
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(status.name()).build()))
+                .scanIndexForward(false)
+                .limit(limit);
+        if (after != null) {
+            request.exclusiveStartKey(Map.of(
+                    "status", AttributeValue.fromS(status.name()),
+                    "datePosted", AttributeValue.fromS(after.datePosted().toString()),
+                    "id", AttributeValue.fromS(after.id())));
+        }
+
+        List<String> conditions = new ArrayList<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        if (minPrice != null) {
+            conditions.add("#price >= :minPrice");
+            values.put(":minPrice", AttributeValue.fromN(Double.toString(minPrice)));
+        }
+        if (maxPrice != null) {
+            conditions.add("#price <= :maxPrice");
+            values.put(":maxPrice", AttributeValue.fromN(Double.toString(maxPrice)));
+        }
+        if (!conditions.isEmpty()) {
+            request.filterExpression(Expression.builder()
+                    .expression(String.join(" AND ", conditions))
+                    .expressionNames(Map.of("#price", "price"))
+                    .expressionValues(values)
+                    .build());
+        }
+
+        Iterator<Page<UserAd>> pages = table().index("status-datePosted-index").query(request.build()).iterator();
+        if (!pages.hasNext()) {
+            return new DatedPage(List.of(), null);
+        }
+
+        Page<UserAd> page = pages.next();
+        Map<String, AttributeValue> lastKey = page.lastEvaluatedKey();
+        DatePosition next = lastKey != null && lastKey.containsKey("datePosted") && lastKey.containsKey("id")
+                ? new DatePosition(Instant.parse(lastKey.get("datePosted").s()), lastKey.get("id").s())
+                : null;
+        return new DatedPage(page.items(), next);
     }
 
     @Override
-    public long countByUserIdAndStatus(String userId, UserAd.AdStatus status) {
-        return findByUserIdAndStatus(userId, status).size();
+    public void forEachPageByStatus(UserAd.AdStatus status, int pageSize, Consumer<List<UserAd>> consumer) {
+        table().index("status-datePosted-index")
+                .query(r -> r
+                        .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(status.name()).build()))
+                        .limit(pageSize))
+                .forEach(page -> {
+                    if (!page.items().isEmpty()) consumer.accept(page.items());
+                });
     }
 
     @Override
-    public boolean existsDuplicate(String userId, String title, double price,
-                                   String category, UserAd.AdStatus status) {
-        String dedupeKey = userId + "#" + title + "#" + price + "#" + category + "#" + status.name();
-        DynamoDbIndex<UserAd> index = table().index("dedupeKey-index");
-
-        return index.query(r -> r.queryConditional(
-                        QueryConditional.keyEqualTo(
-                                Key.builder().partitionValue(dedupeKey).build())))
-                .stream()
-                .findFirst()
-                .map(page -> !page.items().isEmpty())
-                .orElse(false);
+    public long countByUserId(String userId) {
+        return findByUserId(userId).size();
     }
 
     @Override
-    public boolean existsDuplicateExceptId(String userId, String title, double price,
-                                           String category, UserAd.AdStatus status,
-                                           String excludedId) {
-        String dedupeKey = userId + "#" + title + "#" + price + "#" + category + "#" + status.name();
-        DynamoDbIndex<UserAd> index = table().index("dedupeKey-index");
-
-        return index.query(r -> r.queryConditional(
-                        QueryConditional.keyEqualTo(
-                                Key.builder().partitionValue(dedupeKey).build())))
-                .stream()
-                .flatMap(page -> page.items().stream())
-                .anyMatch(ad -> !ad.getId().equals(excludedId));
+    public long countByUserIdAndStatus(String userId, UserAd.AdStatus status) {
+        return findByUserIdAndStatus(userId, status).size();
     }
 
     @Override
@@ -161,6 +582,219 @@ public class UserAdDynamoDbRepositoryImpl implements UserAdDynamoDbRepository {
 
     @Override
     public void deleteById(String id) {
-        table().deleteItem(Key.builder().partitionValue(id).build());
+        findById(id).ifPresent(this::delete);
     }
+
+    @Override
+    public int backfillDedupeGuards() {
+        int created = 0;
+        for (UserAd ad : table().scan().items()) {
+            ad.computeDedupeKey();
+            String key = guardKey(ad);
+            if (key == null) continue;
+
+            try {
+                guardTable().putItem(PutItemEnhancedRequest.builder(AdDedupeGuard.class)
+                        .item(toGuard(ad))
+                        .conditionExpression(Expression.builder()
+                                .expression("attribute_not_exists(id)")
+                                .build())
+                        .build());
+                created++;
+            } catch (ConditionalCheckFailedException e) {
+                log.debug("Dedupe guard {} already present", key);
+                continue;
+            }
+
+            // The scanned copy may be stale: an edit since then moved the key, so release the guard again
+            UserAd stored = table().getItem(r -> r.key(Key.builder().partitionValue(ad.getId()).build()).consistentRead(true));
+            if (stored != null) stored.computeDedupeKey();
+            if (!Objects.equals(guardKey(stored), key)) {
+                releaseGuard(key, ad.getId());
+                created--;
+            }
+        }
+
+        guardTable().putItem(AdDedupeGuard.builder()
+                .id(AdDedupeGuard.BACKFILL_COMPLETE_ID)
+                .createdAt(Instant.now())
+                .build());
+        guardsBackfilled = true;
+        log.info("Backfilled {} ad dedupe guards", created);
+        return created;
+    }
+
+    // Ads written before the guards existed have none, so until the backfill ran they are found by query;
+    // the bloom filter skips that query for keys no stored ad has
+    private void checkUnguardedDuplicate(UserAd ad) {
+        if (guardsBackfilled() || !dedupeKeyFilter.mightContain(ad.getDedupeKey())) return;
+
+        List<UserAd> matches = table().index("dedupeKey-index")
+                .query(r -> r.queryConditional(QueryConditional.keyEqualTo(
+                        Key.builder().partitionValue(ad.getDedupeKey()).build())))
+                .stream()
+                .flatMap(page -> page.items().stream())
+                .toList();
+        if (matches.isEmpty()) {
+            dedupeKeyFilter.recordFalsePositive();
+        }
+        if (matches.stream().anyMatch(existing -> !existing.getId().equals(ad.getId()))) {
+            throw new ApiException(DUPLICATE_AD_MESSAGE, HttpStatus.BAD_REQUEST, "DUPLICATE_AD");
+        }
+    }
+
+    private boolean guardsBackfilled() {
+        if (guardsBackfilled) return true;
+
+        long now = System.currentTimeMillis();
+        if (now - guardsBackfilledCheckedAt < BACKFILL_MARKER_RECHECK_MS) return false;
+        guardsBackfilledCheckedAt = now;
+
+        Key key = Key.builder().partitionValue(AdDedupeGuard.BACKFILL_COMPLETE_ID).build();
+        guardsBackfilled = guardTable().getItem(r -> r.key(key)) != null;
+        return guardsBackfilled;
+    }
+
+    private void releaseGuard(String dedupeKey, String adId) {
+        try {
+            dynamoDbClient.deleteItem(r -> r
+                    .tableName(guardTable().tableName())
+                    .key(Map.of("id", AttributeValue.fromS(dedupeKey)))
+                    .conditionExpression("adId = :adId")
+                    .expressionAttributeValues(Map.of(":adId", AttributeValue.fromS(adId))));
+        } catch (ConditionalCheckFailedException e) {
+            log.debug("Dedupe guard {} already released", dedupeKey);
+        }
+    }
+
+    // Drafts are exempt from duplicate checks, so they hold no guard
+    private String guardKey(UserAd ad) {
+        if (ad == null || ad.getStatus() == UserAd.AdStatus.DRAFT) return null;
+        return ad.getDedupeKey();
+    }
+
+    private AdDedupeGuard toGuard(UserAd ad) {
+        return AdDedupeGuard.builder()
+                .id(ad.getDedupeKey())
+                .adId(ad.getId())
+                .userId(ad.getUserId())
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    private TransactWriteItem putAd(UserAd ad) {
+        return TransactWriteItem.builder()
+                .put(Put.builder()
+                        .tableName(table().tableName())
+                        .item(table().tableSchema().itemToMap(ad, true))
+                        .build())
+                .build();
+    }
+
+    private TransactWriteItem putGuard(UserAd ad) {
+        return TransactWriteItem.builder()
+                .put(Put.builder()
+                        .tableName(guardTable().tableName())
+                        .item(guardTable().tableSchema().itemToMap(toGuard(ad), true))
+                        .conditionExpression("attribute_not_exists(id) OR adId = :adId")
+                        .expressionAttributeValues(Map.of(":adId", AttributeValue.fromS(ad.getId())))
+                        .build())
+                .build();
+    }
+
+    private TransactWriteItem deleteGuard(String dedupeKey, String adId) {
+        return TransactWriteItem.builder()
+                .delete(Delete.builder()
+                        .tableName(guardTable().tableName())
+                        .key(Map.of("id", AttributeValue.fromS(dedupeKey)))
+                        // Never release a guard owned by another ad; a missing guard is fine
+                        .conditionExpression("attribute_not_exists(id) OR adId = :adId")
+                        .expressionAttributeValues(Map.of(":adId", AttributeValue.fromS(adId)))
+                        .build())
+                .build();
+    }
+
+    // Ad deletes come first so the cancellation reasons line up with the ads
+    private List<TransactWriteItem> batchDeleteWrites(List<UserAd> ads) {
+        List<TransactWriteItem> writes = new ArrayList<>();
+        Set<String> guardKeys = new LinkedHashSet<>();
+        Map<String, UserAdStats.Delta> deltas = new LinkedHashMap<>();
+        for (UserAd ad : ads) {
+            writes.add(deleteAd(ad.getId()));
+
+            UserAd current = ad.toBuilder().build();
+            current.computeDedupeKey();
+            String key = guardKey(current);
+            if (key != null) {
+                guardKeys.add(key);
+            }
+            deltas.merge(ad.getUserId(), UserAdStats.Delta.of(ad).negate(), UserAdStats.Delta::plus);
+        }
+
+        // Legacy duplicates share a key, and a transaction may touch each item once
+        for (String key : guardKeys) {
+            writes.add(TransactWriteItem.builder()
+                    .delete(Delete.builder()
+                            .tableName(guardTable().tableName())
+                            .key(Map.of("id", AttributeValue.fromS(key)))
+                            // Unconditional: every ad sharing this user's dedupe keys is being removed too
+                            .build())
+                    .build());
+        }
+        deltas.forEach((userId, delta) -> {
+            if (!delta.isZero()) writes.add(userAdStatsRepository.deltaWrite(userId, delta));
+        });
+        return writes;
+    }
+
+    private static String encodeCursor(String adId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(adId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Invalid cursor", HttpStatus.BAD_REQUEST, "INVALID_CURSOR");
+        }
+    }
+
+    private TransactWriteItem deleteAd(String adId) {
+        return TransactWriteItem.builder()
+                .delete(Delete.builder()
+                        .tableName(table().tableName())
+                        .key(Map.of("id", AttributeValue.fromS(adId)))
+                        // Keeps a repeated delete from decrementing the stats twice
+                        .conditionExpression("attribute_exists(id)")
+                        .build())
+                .build();
+    }
+
+    // A failed condition on the ad itself maps to adConflict; null rethrows the cancellation
+    private void write(List<TransactWriteItem> writes, String duplicateMessage, ApiException adConflict) {
+        try {
+            dynamoDbClient.transactWriteItems(r -> r.transactItems(writes));
+        } catch (TransactionCanceledException e) {
+            List<CancellationReason> reasons = e.cancellationReasons();
+            String guardTableName = guardTable().tableName();
+            String adsTableName = table().tableName();
+            for (int i = 0; i < reasons.size() && i < writes.size(); i++) {
+                if (!CONDITIONAL_CHECK_FAILED.equals(reasons.get(i).code())) continue;
+
+                TransactWriteItem write = writes.get(i);
+                if (write.put() != null && guardTableName.equals(write.put().tableName())) {
+                    throw new ApiException(duplicateMessage, HttpStatus.BAD_REQUEST, "DUPLICATE_AD");
+                }
+                String tableName = write.put() != null ? write.put().tableName()
+                        : write.update() != null ? write.update().tableName()
+                        : null;
+                if (adsTableName.equals(tableName) && adConflict != null) {
+                    throw adConflict;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private record VersionCondition(String expression, Map<String, String> names, Map<String, AttributeValue> values) {}
 }
@@ -0,0 +1,138 @@
+package com.api.sisi_yemi.repository;
+
+import com.api.sisi_yemi.model.UserAdStats;
+import com.api.sisi_yemi.util.DynamoDbUtilHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class UserAdStatsRepository {
+
+    private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final DynamoDbClient dynamoDbClient;
+
+    private DynamoDbTable<UserAdStats> table() {
+        return dynamoDbUtilHelper.getUserAdStatsTable().getRawTable();
+    }
+
+    public Optional<UserAdStats> findByUserId(String userId) {
+        return Optional.ofNullable(table().getItem(Key.builder().partitionValue(userId).build()));
+    }
+
+    public List<UserAdStats> findByUserIds(Collection<String> userIds) {
+        return dynamoDbUtilHelper.getUserAdStatsTable().batchGetByIds(userIds);
+    }
+
+    public List<UserAdStats> findAll() {
+        return table().scan().items().stream().collect(Collectors.toList());
+    }
+
+    /**
+     * For inclusion in the transaction that writes the ads themselves. Unconditional, so an ad
+     * write never fails over stats: for a user without an item it creates a partial one with no
+     * {@code reconciledAt}, which readers treat as missing and rebuild.
+     */
+    public TransactWriteItem deltaWrite(String userId, UserAdStats.Delta delta) {
+        UpdateParts parts = updateParts(delta);
+        return TransactWriteItem.builder()
+                .update(Update.builder()
+                        .tableName(table().tableName())
+                        .key(Map.of("id", AttributeValue.fromS(userId)))
+                        .updateExpression(parts.expression())
+                        .expressionAttributeNames(parts.names())
+                        .expressionAttributeValues(parts.values())
+                        .build())
+                .build();
+    }
+
+    // Skipped for users without an item; the first read rebuilds it from the ads themselves
+    public void applyDelta(String userId, UserAdStats.Delta delta) {
+        if (delta.isZero()) return;
+
+        UpdateParts parts = updateParts(delta);
+        try {
+            dynamoDbClient.updateItem(r -> r
+                    .tableName(table().tableName())
+                    .key(Map.of("id", AttributeValue.fromS(userId)))
+                    .updateExpression(parts.expression())
+                    .conditionExpression("attribute_exists(id)")
+                    .expressionAttributeNames(parts.names())
+                    .expressionAttributeValues(parts.values()));
+        } catch (ConditionalCheckFailedException e) {
+            // Nothing to keep in step yet
+        }
+    }
+
+    /**
+     * Overwrites the stats item unless a delta landed since {@code expectedVersion} was read
+     * ({@code null} meaning the item did not exist). Returns false when the write lost the race.
+     */
+    public boolean replace(UserAdStats stats, Long expectedVersion) {
+        Expression condition = expectedVersion == null
+                ? Expression.builder().expression("attribute_not_exists(id)").build()
+                : Expression.builder()
+                        .expression("#version = :expected")
+                        .putExpressionName("#version", "version")
+                        .putExpressionValue(":expected", AttributeValue.fromN(Long.toString(expectedVersion)))
+                        .build();
+
+        try {
+            table().putItem(PutItemEnhancedRequest.builder(UserAdStats.class)
+                    .item(stats)
+                    .conditionExpression(condition)
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static UpdateParts updateParts(UserAdStats.Delta delta) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> adds = new ArrayList<>();
+
+        add(adds, names, values, "activeCount", delta.active());
+        add(adds, names, values, "soldCount", delta.sold());
+        add(adds, names, values, "draftCount", delta.draft());
+        add(adds, names, values, "totalCount", delta.total());
+        add(adds, names, values, "totalViews", delta.views());
+        add(adds, names, values, "totalMessages", delta.messages());
+        if (delta.earnings() != 0) {
+            names.put("#totalEarnings", "totalEarnings");
+            values.put(":totalEarnings", AttributeValue.fromN(Double.toString(delta.earnings())));
+            adds.add("#totalEarnings :totalEarnings");
+        }
+        add(adds, names, values, "version", 1);
+
+        names.put("#updatedAt", "updatedAt");
+        values.put(":updatedAt", AttributeValue.fromS(Instant.now().toString()));
+
+        return new UpdateParts("ADD " + String.join(", ", adds) + " SET #updatedAt = :updatedAt", names, values);
+    }
+
+    private static void add(List<String> adds, Map<String, String> names, Map<String, AttributeValue> values,
+                            String attribute, long amount) {
+        if (amount == 0) return;
+
+        names.put("#" + attribute, attribute);
+        values.put(":" + attribute, AttributeValue.fromN(Long.toString(amount)));
+        adds.add("#" + attribute + " :" + attribute);
+    }
+
+    private record UpdateParts(String expression, Map<String, String> names, Map<String, AttributeValue> values) {}
+}
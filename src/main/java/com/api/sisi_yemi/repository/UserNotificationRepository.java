@@ -0,0 +1,117 @@
+package com.api.sisi_yemi.repository;
+
+import com.api.sisi_yemi.exception.ApiException;
+import com.api.sisi_yemi.model.UserNotification;
+import com.api.sisi_yemi.util.DynamoDbUtilHelper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class UserNotificationRepository {
+
+    private static final int MAX_BATCH_WRITE = 25;
+    private static final int MAX_BATCH_ATTEMPTS = 5;
+    private static final long BATCH_RETRY_BASE_DELAY_MS = 50;
+
+    private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final DynamoDbClient dynamoDbClient;
+
+    public record NotificationPage(List<UserNotification> notifications, String nextCursor) {}
+
+    private DynamoDbTable<UserNotification> table() {
+        return dynamoDbUtilHelper.getUserNotificationTable().getRawTable();
+    }
+
+    /**
+     * Writes the notifications with BatchWriteItem, retrying unprocessed items with backoff.
+     * Returns how many could still not be written.
+     */
+    public int saveAll(List<UserNotification> notifications) {
+        String tableName = table().tableName();
+        int unwritten = 0;
+        for (int i = 0; i < notifications.size(); i += MAX_BATCH_WRITE) {
+            List<WriteRequest> puts = notifications.subList(i, Math.min(i + MAX_BATCH_WRITE, notifications.size()))
+                    .stream()
+                    .map(notification -> WriteRequest.builder()
+                            .putRequest(PutRequest.builder()
+                                    .item(table().tableSchema().itemToMap(notification, true))
+                                    .build())
+                            .build())
+                    .toList();
+            unwritten += write(Map.of(tableName, puts), tableName);
+        }
+        return unwritten;
+    }
+
+    /**
+     * Newest-first page of a user's notifications. {@code cursor} is the opaque
+     * {@code nextCursor} of the previous page, or null for the first one.
+     */
+    public NotificationPage findPageByUserId(String userId, int limit, String cursor) {
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(userId).build()))
+                .scanIndexForward(false)
+                .limit(limit);
+        if (cursor != null && !cursor.isBlank()) {
+            request.exclusiveStartKey(Map.of(
+                    "userId", AttributeValue.fromS(userId),
+                    "id", AttributeValue.fromS(decodeCursor(cursor))));
+        }
+
+        Iterator<Page<UserNotification>> pages = table().query(request.build()).iterator();
+        if (!pages.hasNext()) {
+            return new NotificationPage(List.of(), null);
+        }
+
+        Page<UserNotification> page = pages.next();
+        List<UserNotification> notifications = page.items();
+        String nextCursor = page.lastEvaluatedKey() != null && !notifications.isEmpty()
+                ? encodeCursor(notifications.get(notifications.size() - 1).getId())
+                : null;
+        return new NotificationPage(notifications, nextCursor);
+    }
+
+    private int write(Map<String, List<WriteRequest>> requests, String tableName) {
+        Map<String, List<WriteRequest>> unprocessed = requests;
+        try {
+            for (int attempt = 0; !unprocessed.isEmpty() && attempt < MAX_BATCH_ATTEMPTS; attempt++) {
+                if (attempt > 0) {
+                    Thread.sleep(BATCH_RETRY_BASE_DELAY_MS << attempt);
+                }
+                Map<String, List<WriteRequest>> batch = unprocessed;
+                unprocessed = dynamoDbClient.batchWriteItem(r -> r.requestItems(batch)).unprocessedItems();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return unprocessed.getOrDefault(tableName, List.of()).size();
+    }
+
+    private static String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Invalid cursor", HttpStatus.BAD_REQUEST, "INVALID_CURSOR");
+        }
+    }
+}
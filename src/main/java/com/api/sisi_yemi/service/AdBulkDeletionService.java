@@ -0,0 +1,236 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.BulkDeletionStatus;
+import com.api.sisi_yemi.event.AdChangedEvent;
+import com.api.sisi_yemi.exception.ApiException;
+import com.api.sisi_yemi.model.UserAd;
+import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
+import com.api.sisi_yemi.util.ImageUploader;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deletes all of a user's ads and their images in the background. Images go out in
+ * DeleteObjects calls of up to 1,000 keys, ads in transactions of up to 33, both spread over a
+ * bounded worker pool. An ad is only removed once all of its images are gone, so a failed
+ * image leaves the ad in place for a retry instead of orphaning the object.
+ */
+@Service
+@Slf4j
+public class AdBulkDeletionService {
+
+    private final UserAdDynamoDbRepository userAdRepository;
+    private final ImageUploader imageUploader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration retention;
+
+    private final ExecutorService coordinators;
+    private final ExecutorService workers;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Job> runningByUser = new ConcurrentHashMap<>();
+
+    public AdBulkDeletionService(UserAdDynamoDbRepository userAdRepository,
+                                 ImageUploader imageUploader,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${ads.bulk-delete.parallelism:4}") int parallelism,
+                                 @Value("${ads.bulk-delete.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                 @Value("${ads.bulk-delete.retention-minutes:60}") long retentionMinutes) {
+        this.userAdRepository = userAdRepository;
+        this.imageUploader = imageUploader;
+        this.eventPublisher = eventPublisher;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        this.coordinators = Executors.newFixedThreadPool(maxConcurrentJobs,
+                Thread.ofPlatform().name("bulk-delete-job-", 0).daemon().factory());
+        this.workers = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("bulk-delete-worker-", 0).daemon().factory());
+    }
+
+    /**
+     * Starts deleting every ad owned by {@code userId}. A user has at most one running job;
+     * asking again while it runs returns the existing job.
+     */
+    public BulkDeletionStatus deleteAllAdsByUserId(String userId) {
+        pruneFinishedJobs();
+
+        Job job = runningByUser.computeIfAbsent(userId, id -> {
+            Job created = new Job(UUID.randomUUID().toString(), id);
+            jobs.put(created.id, created);
+            coordinators.execute(() -> run(created));
+            return created;
+        });
+        return job.snapshot();
+    }
+
+    public BulkDeletionStatus getStatus(String jobId, String userId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.userId.equals(userId)) {
+            throw new ApiException("Deletion job not found", HttpStatus.NOT_FOUND, "JOB_NOT_FOUND");
+        }
+        return job.snapshot();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinators.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void run(Job job) {
+        try {
+            List<UserAd> ads = userAdRepository.findByUserId(job.userId);
+            job.totalAds.set(ads.size());
+
+            Map<String, List<String>> keysByAd = collectImageKeys(ads, job);
+            Set<String> failedKeys = deleteImages(keysByAd, job);
+
+            List<UserAd> deletable = new ArrayList<>();
+            for (UserAd ad : ads) {
+                List<String> keys = keysByAd.get(ad.getId());
+                if (keys == null) continue;
+
+                long failed = keys.stream().filter(failedKeys::contains).count();
+                if (failed > 0) {
+                    job.fail("ad", ad.getId(), failed + " image(s) could not be deleted");
+                } else {
+                    deletable.add(ad);
+                }
+            }
+            deleteAds(deletable, job);
+
+            job.finish(job.failures.isEmpty()
+                    ? BulkDeletionStatus.State.COMPLETED
+                    : BulkDeletionStatus.State.COMPLETED_WITH_ERRORS);
+            log.info("Bulk deletion {} for user {} finished: {}/{} ads, {}/{} images, {} failures",
+                    job.id, job.userId, job.deletedAds.get(), job.totalAds.get(),
+                    job.deletedImages.get(), job.totalImages.get(), job.failures.size());
+        } catch (Exception e) {
+            log.error("Bulk deletion {} for user {} failed", job.id, job.userId, e);
+            job.fail("job", job.id, e.getMessage());
+            job.finish(BulkDeletionStatus.State.FAILED);
+        } finally {
+            runningByUser.remove(job.userId, job);
+        }
+    }
+
+    // Ads whose image URLs cannot be parsed are reported and left out of the result
+    private Map<String, List<String>> collectImageKeys(List<UserAd> ads, Job job) {
+        Map<String, List<String>> keysByAd = new LinkedHashMap<>();
+        for (UserAd ad : ads) {
+            List<String> keys = new ArrayList<>();
+            try {
+                if (ad.getImages() != null) {
+                    ad.getImages().forEach(image -> keys.add(imageUploader.extractS3KeyFromUrl(image.getUrl())));
+                }
+                keysByAd.put(ad.getId(), keys);
+            } catch (ApiException e) {
+                job.fail("ad", ad.getId(), e.getMessage());
+            }
+        }
+        job.totalImages.set(keysByAd.values().stream().mapToInt(List::size).sum());
+        return keysByAd;
+    }
+
+    private Set<String> deleteImages(Map<String, List<String>> keysByAd, Job job) {
+        List<String> keys = keysByAd.values().stream().flatMap(List::stream).distinct().toList();
+
+        List<CompletableFuture<Map<String, String>>> batches = new ArrayList<>();
+        for (List<String> batch : partition(keys, ImageUploader.MAX_KEYS_PER_DELETE)) {
+            batches.add(CompletableFuture.supplyAsync(() -> {
+                Map<String, String> failures = imageUploader.deleteImagesFromS3(batch);
+                job.deletedImages.addAndGet(batch.size() - failures.size());
+                failures.forEach((key, reason) -> job.fail("image", key, reason));
+                return failures;
+            }, workers));
+        }
+
+        Set<String> failed = new HashSet<>();
+        batches.forEach(batch -> failed.addAll(batch.join().keySet()));
+        return failed;
+    }
+
+    private void deleteAds(List<UserAd> ads, Job job) {
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (List<UserAd> batch : partition(ads, UserAdDynamoDbRepository.MAX_ADS_PER_BATCH_DELETE)) {
+            batches.add(CompletableFuture.runAsync(() -> {
+                Map<String, String> failures = userAdRepository.deleteBatch(batch);
+                for (UserAd ad : batch) {
+                    String reason = failures.get(ad.getId());
+                    if (reason != null) {
+                        job.fail("ad", ad.getId(), reason);
+                    } else {
+                        job.deletedAds.incrementAndGet();
+                        eventPublisher.publishEvent(AdChangedEvent.deleted(ad));
+                    }
+                }
+            }, workers));
+        }
+        batches.forEach(CompletableFuture::join);
+    }
+
+    private void pruneFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            batches.add(items.subList(i, Math.min(i + size, items.size())));
+        }
+        return batches;
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String userId;
+        private final Instant startedAt = Instant.now();
+
+        private final AtomicInteger totalAds = new AtomicInteger();
+        private final AtomicInteger deletedAds = new AtomicInteger();
+        private final AtomicInteger totalImages = new AtomicInteger();
+        private final AtomicInteger deletedImages = new AtomicInteger();
+        private final Queue<BulkDeletionStatus.ItemFailure> failures = new ConcurrentLinkedQueue<>();
+
+        private volatile BulkDeletionStatus.State state = BulkDeletionStatus.State.RUNNING;
+        private volatile Instant finishedAt;
+
+        private Job(String id, String userId) {
+            this.id = id;
+            this.userId = userId;
+        }
+
+        private void fail(String type, String itemId, String reason) {
+            failures.add(new BulkDeletionStatus.ItemFailure(type, itemId, reason));
+        }
+
+        private void finish(BulkDeletionStatus.State finalState) {
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        private BulkDeletionStatus snapshot() {
+            return BulkDeletionStatus.builder()
+                    .jobId(id)
+                    .state(state)
+                    .totalAds(totalAds.get())
+                    .deletedAds(deletedAds.get())
+                    .totalImages(totalImages.get())
+                    .deletedImages(deletedImages.get())
+                    .failures(List.copyOf(failures))
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
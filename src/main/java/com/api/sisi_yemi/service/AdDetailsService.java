@@ -1,7 +1,7 @@
 package com.api.sisi_yemi.service;
 
 import com.api.sisi_yemi.dto.AdDetailsResponse;
-import com.api.sisi_yemi.dto.ProfileResponse;
+import com.api.sisi_yemi.dto.SellerSummary;
 import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.model.UserAd;
 import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
@@ -13,13 +13,18 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class AdDetailsService {
     private final UserAdDynamoDbRepository userAdRepository;
-    private final ProfileService profileService;
+    private final SellerSummaryCache sellerSummaryCache;
+    private final AdViewCounter adViewCounter;
+    private final TrendingAdsService trendingAdsService;
 
     public AdDetailsResponse getAdDetails (String adId) {
         UserAd ad = userAdRepository.findById(adId)
                 .orElseThrow(() -> new ApiException("Ad not found", HttpStatus.NOT_FOUND, "AD_NOT_FOUND"));
 
-        ProfileResponse sellerProfile = profileService.getProfile(ad.getUserId());
+        adViewCounter.record(ad.getId(), ad.getUserId());
+        trendingAdsService.recordView(ad);
+
+        SellerSummary seller = sellerSummaryCache.get(ad.getUserId());
 
         return AdDetailsResponse.builder()
                 // Ad fields
@@ -31,19 +36,20 @@ public class AdDetailsService {
                 .location(ad.getLocation())
                 .condition(ad.getCondition())
                 .images(ad.getImages())
-                .views(ad.getViews())
+                .views(ad.getViews() + (int) adViewCounter.pendingViews(ad.getId()))
                 .messages(ad.getMessages())
                 .datePosted(ad.getDatePosted())
                 .status(ad.getStatus())
                 .dateSold(ad.getDateSold())
                 // Seller fields
-                .sellerName(sellerProfile.getName())
-                .sellerAvatarUrl(sellerProfile.getAvatarUrl())
-                .sellerRating(sellerProfile.getRating())
-                .sellerItemsSold(sellerProfile.getItemsSold())
-                .sellerResponseRate(sellerProfile.getResponseRate())
-                .sellerJoinDate(sellerProfile.getJoinDate())
-                .sellerReviews(sellerProfile.getReviews())
+                .sellerName(seller.getName())
+                .sellerAvatarUrl(seller.getAvatarUrl())
+                .sellerRating(seller.getRating())
+                .sellerItemsSold(seller.getItemsSold())
+                .sellerResponseRate(seller.getResponseRate())
+                .sellerJoinDate(seller.getJoinDate())
+                .sellerReviews(seller.getReviews())
+                .sellerActiveListings(seller.getActiveListingCount())
                 .build();
     };
 }
@@ -0,0 +1,134 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.AdNotification;
+import com.api.sisi_yemi.handler.MessageWebSocketHandler;
+import com.api.sisi_yemi.model.UserSettings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Queues listing alerts per user and delivers them in periodic batches: one settings lookup and
+ * one batched write to the notification inbox per batch of users, then one WebSocket frame per
+ * user. The push is a best-effort extra for users online right now; the inbox is the record.
+ * Alerts for the same ad that arrive before a flush are coalesced, so a seller editing a listing
+ * repeatedly does not spam its watchers.
+ */
+@Component
+@Slf4j
+public class AdNotificationDispatcher {
+
+    private static final int SETTINGS_BATCH_SIZE = 100;
+
+    private final UserSettingsService userSettingsService;
+    private final UserNotificationService notificationService;
+    private final MessageWebSocketHandler webSocketHandler;
+    private final int maxPendingPerUser;
+
+    // userId -> (type#adId -> alert); the inner maps are only touched inside compute/remove
+    private final Map<String, LinkedHashMap<String, AdNotification>> pending = new ConcurrentHashMap<>();
+
+    private final Counter delivered;
+    private final Counter suppressed;
+    private final Counter unstored;
+
+    public AdNotificationDispatcher(UserSettingsService userSettingsService,
+                                    UserNotificationService notificationService,
+                                    MessageWebSocketHandler webSocketHandler,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${notifications.max-pending-per-user:50}") int maxPendingPerUser) {
+        this.userSettingsService = userSettingsService;
+        this.notificationService = notificationService;
+        this.webSocketHandler = webSocketHandler;
+        this.maxPendingPerUser = maxPendingPerUser;
+
+        this.delivered = meterRegistry.counter("notifications.ads.delivered");
+        this.suppressed = meterRegistry.counter("notifications.ads.suppressed");
+        this.unstored = meterRegistry.counter("notifications.ads.unstored");
+    }
+
+    public void enqueue(String userId, AdNotification notification) {
+        String key = notification.type() + "#" + notification.adId();
+        pending.compute(userId, (id, queued) -> {
+            if (queued == null) queued = new LinkedHashMap<>();
+
+            AdNotification earlier = queued.remove(key);
+            queued.put(key, earlier != null ? earlier.coalesce(notification) : notification);
+            if (queued.size() > maxPendingPerUser) {
+                Iterator<String> oldest = queued.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            return queued;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.flush-interval-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<String> userIds = new ArrayList<>(pending.keySet());
+        for (int i = 0; i < userIds.size(); i += SETTINGS_BATCH_SIZE) {
+            Map<String, List<AdNotification>> batch = new HashMap<>();
+            for (String userId : userIds.subList(i, Math.min(i + SETTINGS_BATCH_SIZE, userIds.size()))) {
+                LinkedHashMap<String, AdNotification> queued = pending.remove(userId);
+                if (queued != null) batch.put(userId, new ArrayList<>(queued.values()));
+            }
+            if (batch.isEmpty()) continue;
+
+            try {
+                deliver(batch);
+            } catch (Exception e) {
+                log.error("Failed to deliver ad notifications to {} users", batch.size(), e);
+            }
+        }
+    }
+
+    private void deliver(Map<String, List<AdNotification>> batch) {
+        Map<String, UserSettings> settings = userSettingsService.getSettings(batch.keySet());
+
+        Map<String, List<AdNotification>> allowedByUser = new HashMap<>();
+        batch.forEach((userId, notifications) -> {
+            UserSettings userSettings = settings.get(userId);
+            List<AdNotification> allowed = notifications.stream()
+                    .filter(notification -> isEnabled(userSettings, notification.type()))
+                    .toList();
+
+            suppressed.increment(notifications.size() - allowed.size());
+            if (!allowed.isEmpty()) allowedByUser.put(userId, allowed);
+        });
+        if (allowedByUser.isEmpty()) return;
+
+        try {
+            int failed = notificationService.store(allowedByUser);
+            if (failed > 0) {
+                unstored.increment(failed);
+                log.warn("Failed to store {} ad notifications", failed);
+            }
+        } catch (Exception e) {
+            unstored.increment(allowedByUser.values().stream().mapToInt(List::size).sum());
+            log.error("Failed to store ad notifications for {} users", allowedByUser.size(), e);
+        }
+
+        // Dropped without complaint for users with no open session; they read the inbox instead
+        allowedByUser.forEach((userId, allowed) -> {
+            webSocketHandler.sendMessageToUser(userId, Map.of(
+                    "action", "notifications",
+                    "notifications", allowed));
+            delivered.increment(allowed.size());
+        });
+    }
+
+    private static boolean isEnabled(UserSettings settings, AdNotification.Type type) {
+        return switch (type) {
+            case SAVED_SEARCH_MATCH -> settings.isItemUpdateNotifications();
+            case PRICE_DROP -> settings.isPriceDropNotifications();
+        };
+    }
+}
@@ -0,0 +1,214 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.AdSearchPage;
+import com.api.sisi_yemi.dto.RecentActiveAdResponse;
+import com.api.sisi_yemi.exception.ApiException;
+import com.api.sisi_yemi.model.UserAd;
+import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
+import com.api.sisi_yemi.repository.UserAdDynamoDbRepository.DatePosition;
+import com.api.sisi_yemi.util.FilterAdHelper;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Newest-first search across several statuses, optionally scoped to one seller. Each status is
+ * its own sorted stream: a seller's slice of {@code userId-status-index}, or pages of
+ * {@code status-datePosted-index}. The streams are opened in parallel and k-way merged by
+ * {@code datePosted}; the cursor records where each stream stopped.
+ */
+@Service
+public class AdSearchService {
+
+    private static final int MAX_LIMIT = 100;
+    // Bounds the reads one request may spend on a very selective filter
+    private static final int MAX_PAGES_PER_STATUS = 5;
+
+    private static final Comparator<UserAd> NEWEST_FIRST = Comparator
+            .comparing((UserAd ad) -> Optional.ofNullable(ad.getDatePosted()).orElse(Instant.EPOCH))
+            .thenComparing(UserAd::getId)
+            .reversed();
+
+    private final UserAdDynamoDbRepository userAdRepository;
+    private final FilterAdHelper filterAdHelper;
+    private final ExecutorService hydrationExecutor;
+
+    public AdSearchService(UserAdDynamoDbRepository userAdRepository,
+                           FilterAdHelper filterAdHelper,
+                           ExecutorService hydrationExecutor) {
+        this.userAdRepository = userAdRepository;
+        this.filterAdHelper = filterAdHelper;
+        this.hydrationExecutor = hydrationExecutor;
+    }
+
+    public record Criteria(String sellerId, String category, String location, String condition,
+                           Double minPrice, Double maxPrice, String search) {}
+
+    public AdSearchPage search(Set<UserAd.AdStatus> statuses, Criteria criteria, int limit, String cursor) {
+        int capped = Math.clamp(limit, 1, MAX_LIMIT);
+        Map<UserAd.AdStatus, Resume> resumes = cursor != null && !cursor.isBlank()
+                ? decodeCursor(cursor, statuses)
+                : Map.of();
+
+        List<StatusStream> streams = statuses.stream()
+                .sorted()
+                .map(status -> new StatusStream(status, criteria, capped,
+                        resumes.getOrDefault(status, Resume.START)))
+                .toList();
+
+        CompletableFuture.allOf(streams.stream()
+                        .filter(stream -> !stream.exhausted)
+                        .map(stream -> CompletableFuture.runAsync(stream::fetch, hydrationExecutor))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+
+        List<UserAd> ads = new ArrayList<>(capped);
+        while (ads.size() < capped) {
+            StatusStream newest = null;
+            boolean stalled = false;
+            for (StatusStream stream : streams) {
+                UserAd head = stream.peek();
+                if (head == null) {
+                    // Out of page budget: stop here rather than emit ads out of order
+                    stalled |= !stream.exhausted;
+                    continue;
+                }
+                if (newest == null || NEWEST_FIRST.compare(head, newest.peek()) < 0) {
+                    newest = stream;
+                }
+            }
+            if (stalled || newest == null) break;
+            ads.add(newest.poll());
+        }
+
+        boolean hasNextPage = streams.stream().anyMatch(stream -> !stream.exhausted);
+        List<RecentActiveAdResponse> items = ads.stream().map(RecentActiveAdResponse::fromEntity).toList();
+        return new AdSearchPage(items, hasNextPage ? encodeCursor(streams) : null, hasNextPage);
+    }
+
+    // One status, read lazily; the buffer only ever holds ads that passed the filters
+    private final class StatusStream {
+        private final UserAd.AdStatus status;
+        private final Criteria criteria;
+        private final int pageSize;
+        private final ArrayDeque<UserAd> buffer = new ArrayDeque<>();
+
+        // Everything up to here has been consumed
+        private DatePosition position;
+        // Where the next index page starts, which may lie past ads dropped by the filters
+        private DatePosition pageEnd;
+        private boolean fetchedAll;
+        private boolean exhausted;
+        private int pagesRead;
+
+        private StatusStream(UserAd.AdStatus status, Criteria criteria, int pageSize, Resume resume) {
+            this.status = status;
+            this.criteria = criteria;
+            this.pageSize = pageSize;
+            this.position = resume.position();
+            this.pageEnd = resume.position();
+            this.exhausted = resume.exhausted();
+            this.fetchedAll = resume.exhausted();
+        }
+
+        private void fetch() {
+            List<UserAd> fetched;
+            if (criteria.sellerId() != null) {
+                // A seller's slice for one status is small enough to read whole and order here
+                fetched = userAdRepository.findByUserIdAndStatus(criteria.sellerId(), status).stream()
+                        .filter(ad -> position == null || NEWEST_FIRST.compare(ad, positionAd(position)) > 0)
+                        .sorted(NEWEST_FIRST)
+                        .toList();
+                fetchedAll = true;
+            } else {
+                UserAdDynamoDbRepository.DatedPage page = userAdRepository.findPageByStatusNewestFirst(
+                        status, pageEnd, pageSize, criteria.minPrice(), criteria.maxPrice());
+                fetched = page.ads();
+                pageEnd = page.next();
+                fetchedAll = page.next() == null;
+            }
+            pagesRead++;
+
+            buffer.addAll(filterAdHelper.filterPageItems(fetched, criteria.category(), criteria.location(),
+                    criteria.condition(), criteria.minPrice(), criteria.maxPrice(), criteria.search()));
+            if (buffer.isEmpty()) {
+                advanceToPageEnd();
+            }
+        }
+
+        private UserAd peek() {
+            while (buffer.isEmpty() && !fetchedAll && pagesRead < MAX_PAGES_PER_STATUS) {
+                fetch();
+            }
+            return buffer.peek();
+        }
+
+        private UserAd poll() {
+            UserAd ad = buffer.poll();
+            position = DatePosition.of(ad);
+            if (buffer.isEmpty()) {
+                advanceToPageEnd();
+            }
+            return ad;
+        }
+
+        private void advanceToPageEnd() {
+            if (fetchedAll) {
+                exhausted = true;
+            } else {
+                position = pageEnd;
+            }
+        }
+    }
+
+    private static UserAd positionAd(DatePosition position) {
+        return UserAd.builder().datePosted(position.datePosted()).id(position.id()).build();
+    }
+
+    private record Resume(DatePosition position, boolean exhausted) {
+        static final Resume START = new Resume(null, false);
+    }
+
+    // STATUS|datePosted|id per stream, or STATUS|- once it is exhausted
+    private static String encodeCursor(List<StatusStream> streams) {
+        StringJoiner raw = new StringJoiner(";");
+        for (StatusStream stream : streams) {
+            if (stream.exhausted) {
+                raw.add(stream.status.name() + "|-");
+            } else if (stream.position == null) {
+                raw.add(stream.status.name() + "|");
+            } else {
+                raw.add(stream.status.name() + "|" + stream.position.datePosted() + "|" + stream.position.id());
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<UserAd.AdStatus, Resume> decodeCursor(String cursor, Set<UserAd.AdStatus> statuses) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Map<UserAd.AdStatus, Resume> resumes = new EnumMap<>(UserAd.AdStatus.class);
+            for (String entry : raw.split(";")) {
+                String[] parts = entry.split("\\|", 3);
+                UserAd.AdStatus status = UserAd.AdStatus.valueOf(parts[0]);
+                if (parts.length == 2 && parts[1].equals("-")) {
+                    resumes.put(status, new Resume(null, true));
+                } else if (parts.length == 2 && parts[1].isEmpty()) {
+                    resumes.put(status, Resume.START);
+                } else {
+                    resumes.put(status, new Resume(new DatePosition(Instant.parse(parts[1]), parts[2]), false));
+                }
+            }
+            // A cursor only makes sense for the statuses it was issued for
+            if (!resumes.keySet().equals(statuses)) throw new IllegalArgumentException();
+            return resumes;
+        } catch (RuntimeException e) {
+            throw new ApiException("Invalid cursor", HttpStatus.BAD_REQUEST, "INVALID_CURSOR");
+        }
+    }
+}
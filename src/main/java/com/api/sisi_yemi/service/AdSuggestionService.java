@@ -0,0 +1,163 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.AdSuggestion;
+import com.api.sisi_yemi.event.AdChangedEvent;
+import com.api.sisi_yemi.model.UserAd;
+import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
+import com.api.sisi_yemi.util.SuggestionTrie;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Search-box suggestions over the normalised titles and categories of active ads. Each ad
+ * contributes {@code 1 + ln(1 + views)} to its title and category, so popular listings rank
+ * first. Writes adjust the tries in place; lookups only walk the typed prefix.
+ */
+@Service
+@Slf4j
+public class AdSuggestionService {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int SEED_PAGE_SIZE = 500;
+
+    private final UserAdDynamoDbRepository userAdRepository;
+    private final int topK;
+    private final Timer lookupTimer;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private SuggestionTrie titles;
+    private SuggestionTrie categories;
+    private Map<String, Contribution> contributions = new HashMap<>();
+    // Non-null while seeding; changes seen meanwhile are replayed onto the fresh tries
+    private Map<String, UserAd> changedDuringSeed;
+
+    public AdSuggestionService(UserAdDynamoDbRepository userAdRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${ads.suggestions.top-k:10}") int topK) {
+        this.userAdRepository = userAdRepository;
+        this.topK = topK;
+        this.titles = new SuggestionTrie(topK);
+        this.categories = new SuggestionTrie(topK);
+        this.lookupTimer = Timer.builder("ads.suggestions.lookup")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    public List<AdSuggestion> suggest(String query, int limit) {
+        String prefix = normalise(query);
+        if (prefix.isEmpty()) return List.of();
+
+        int capped = Math.clamp(limit, 1, topK);
+        return lookupTimer.record(() -> {
+            List<AdSuggestion> suggestions = new ArrayList<>(capped * 2);
+            lock.readLock().lock();
+            try {
+                categories.complete(prefix, capped).forEach(s ->
+                        suggestions.add(new AdSuggestion(s.text(), AdSuggestion.Type.CATEGORY, s.weight())));
+                titles.complete(prefix, capped).forEach(s ->
+                        suggestions.add(new AdSuggestion(s.text(), AdSuggestion.Type.TITLE, s.weight())));
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            suggestions.sort(Comparator.comparingDouble(AdSuggestion::score).reversed());
+            return suggestions.size() > capped ? suggestions.subList(0, capped) : suggestions;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        lock.writeLock().lock();
+        try {
+            changedDuringSeed = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            SuggestionTrie seededTitles = new SuggestionTrie(topK);
+            SuggestionTrie seededCategories = new SuggestionTrie(topK);
+            Map<String, Contribution> seededContributions = new HashMap<>();
+            userAdRepository.forEachPageByStatus(UserAd.AdStatus.ACTIVE, SEED_PAGE_SIZE, ads ->
+                    ads.forEach(ad -> apply(ad.getId(), ad, seededTitles, seededCategories, seededContributions)));
+
+            lock.writeLock().lock();
+            try {
+                changedDuringSeed.forEach((adId, ad) ->
+                        apply(adId, ad, seededTitles, seededCategories, seededContributions));
+                titles = seededTitles;
+                categories = seededCategories;
+                contributions = seededContributions;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Ad suggestions seeded with {} titles and {} categories",
+                    seededTitles.size(), seededCategories.size());
+        } catch (Exception e) {
+            log.error("Failed to seed ad suggestions", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringSeed = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @EventListener
+    public void onAdChanged(AdChangedEvent event) {
+        UserAd current = event.isDeleted() ? null : event.current();
+
+        lock.writeLock().lock();
+        try {
+            apply(event.adId(), current, titles, categories, contributions);
+            if (changedDuringSeed != null) {
+                changedDuringSeed.put(event.adId(), current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Replaces whatever the ad contributed before with what its current state contributes
+    private static void apply(String adId, UserAd ad, SuggestionTrie titles, SuggestionTrie categories,
+                              Map<String, Contribution> contributions) {
+        Contribution previous = contributions.remove(adId);
+        if (previous != null) {
+            titles.add(previous.title(), -previous.weight());
+            categories.add(previous.category(), -previous.weight());
+        }
+
+        if (ad == null || ad.getStatus() != UserAd.AdStatus.ACTIVE) return;
+
+        Contribution next = new Contribution(normalise(ad.getTitle()), normalise(ad.getCategory()),
+                1 + Math.log1p(Math.max(ad.getViews(), 0)));
+        titles.add(next.title(), next.weight());
+        categories.add(next.category(), next.weight());
+        contributions.put(adId, next);
+    }
+
+    static String normalise(String text) {
+        if (text == null) return "";
+
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        String normalised = NON_ALPHANUMERIC.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return normalised.length() > MAX_KEY_LENGTH ? normalised.substring(0, MAX_KEY_LENGTH) : normalised;
+    }
+
+    private record Contribution(String title, String category, double weight) {}
+}
@@ -0,0 +1,170 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.model.UserAdStats;
+import com.api.sisi_yemi.repository.UserAdStatsRepository;
+import com.api.sisi_yemi.util.DynamoDbUtilHelper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts ad page views in memory and periodically folds the deltas into
+ * {@code UserAd.views} with atomic {@code ADD} updates, so a page view never costs a write.
+ * Flushed views are then added to each owner's {@code UserAdStats.totalViews} in one delta per user.
+ */
+@Component
+@Slf4j
+public class AdViewCounter {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final UserAdStatsRepository userAdStatsRepository;
+    private final String tableName;
+
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Map<String, String> owners = new ConcurrentHashMap<>();
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+    private final AtomicLong lastFlushAt = new AtomicLong(System.currentTimeMillis());
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Timer flushTimer;
+    private final Counter flushedViews;
+    private final Counter failedViews;
+
+    public AdViewCounter(DynamoDbClient dynamoDbClient,
+                         DynamoDbUtilHelper dynamoDbUtilHelper,
+                         UserAdStatsRepository userAdStatsRepository,
+                         MeterRegistry meterRegistry) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.userAdStatsRepository = userAdStatsRepository;
+        this.tableName = dynamoDbUtilHelper.getUserAdsTable().getRawTable().tableName();
+
+        this.flushTimer = meterRegistry.timer("ads.views.flush.duration");
+        this.flushedViews = meterRegistry.counter("ads.views.flushed");
+        this.failedViews = meterRegistry.counter("ads.views.flush.failed");
+        Gauge.builder("ads.views.pending.ads", pending, Map::size).register(meterRegistry);
+        Gauge.builder("ads.views.flush.lag.seconds", this, AdViewCounter::flushLagSeconds).register(meterRegistry);
+        Gauge.builder("ads.views.last.flush.age.seconds", lastFlushAt,
+                last -> (System.currentTimeMillis() - last.get()) / 1000.0).register(meterRegistry);
+    }
+
+    // Counted inside compute so the increment cannot land on an adder the flush has just removed
+    public void record(String adId, String userId) {
+        pending.compute(adId, (id, adder) -> {
+            if (adder == null) adder = new LongAdder();
+            adder.increment();
+            if (userId != null) owners.putIfAbsent(id, userId);
+            return adder;
+        });
+        oldestPendingAt.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    public long pendingViews(String adId) {
+        LongAdder adder = pending.get(adId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${ads.views.flush-interval-ms:30000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushTimer.record(this::flushPending);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing pending ad views before shutdown");
+        flush();
+    }
+
+    private void flushPending() {
+        long pendingSince = oldestPendingAt.getAndSet(0);
+
+        Map<String, Long> deltas = new HashMap<>();
+        pending.forEach((adId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                deltas.put(adId, delta);
+            } else {
+                // Idle since the last flush; re-checked under the key's lock in case a view just arrived
+                pending.computeIfPresent(adId, (id, current) -> {
+                    if (current.sum() != 0) return current;
+                    owners.remove(id);
+                    return null;
+                });
+            }
+        });
+
+        boolean failures = false;
+        Map<String, Long> viewsByOwner = new HashMap<>();
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            try {
+                addViews(delta.getKey(), delta.getValue());
+                flushedViews.increment(delta.getValue());
+                String owner = owners.get(delta.getKey());
+                if (owner != null) viewsByOwner.merge(owner, delta.getValue(), Long::sum);
+            } catch (ConditionalCheckFailedException e) {
+                // The ad was deleted since it was viewed
+                log.debug("Dropping {} views for missing ad {}", delta.getValue(), delta.getKey());
+            } catch (Exception e) {
+                log.warn("Failed to flush {} views for ad {}: {}", delta.getValue(), delta.getKey(), e.getMessage());
+                failedViews.increment(delta.getValue());
+                pending.computeIfAbsent(delta.getKey(), id -> new LongAdder()).add(delta.getValue());
+                failures = true;
+            }
+        }
+
+        viewsByOwner.forEach((userId, views) -> {
+            try {
+                userAdStatsRepository.applyDelta(userId, UserAdStats.Delta.views(views));
+            } catch (Exception e) {
+                // Not retried: a timed-out ADD may still have landed, and reconciliation repairs a lost one
+                log.warn("Failed to add {} views to stats of user {}: {}", views, userId, e.getMessage());
+            }
+        });
+
+        if (failures && pendingSince > 0) {
+            oldestPendingAt.accumulateAndGet(pendingSince, (current, since) -> current == 0 ? since : Math.min(current, since));
+        }
+        if (!failures) {
+            lastFlushAt.set(System.currentTimeMillis());
+        }
+        if (!deltas.isEmpty()) {
+            log.debug("Flushed view deltas for {} ads", deltas.size());
+        }
+    }
+
+    private void addViews(String adId, long delta) {
+        dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("id", AttributeValue.fromS(adId)))
+                .updateExpression("ADD #views :delta")
+                .conditionExpression("attribute_exists(id)")
+                .expressionAttributeNames(Map.of("#views", "views"))
+                .expressionAttributeValues(Map.of(":delta", AttributeValue.fromN(Long.toString(delta))))
+                .build());
+    }
+
+    private double flushLagSeconds() {
+        long since = oldestPendingAt.get();
+        return since == 0 ? 0 : (System.currentTimeMillis() - since) / 1000.0;
+    }
+}
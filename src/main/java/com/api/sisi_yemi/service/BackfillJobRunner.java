@@ -0,0 +1,58 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.repository.FavoriteRepository;
+import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Table-wide data jobs, never run by serving instances: the backfills once per rollout, the
+ * {@code ad-stats} reconcile from a daily scheduled task. Launching the application with
+ * {@code --backfill=<job>} (repeatable, best combined with
+ * {@code --spring.main.web-application-type=none}) runs the named jobs and exits; without the
+ * argument this does nothing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BackfillJobRunner implements ApplicationRunner {
+
+    private static final String OPTION = "backfill";
+
+    private final UserAdDynamoDbRepository userAdRepository;
+    private final FavoriteRepository favoriteRepository;
+    private final UserAdStatsService userAdStatsService;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) return;
+
+        int exitCode = 0;
+        List<String> jobs = args.getOptionValues(OPTION);
+        try {
+            for (String job : jobs) {
+                log.info("Running backfill job {}", job);
+                switch (job) {
+                    case "dedupe-guards" -> userAdRepository.backfillDedupeGuards();
+                    case "favorite-reverse-index" -> favoriteRepository.backfillReverseIndex();
+                    case "ad-stats" -> userAdStatsService.reconcile();
+                    default -> throw new IllegalArgumentException("Unknown backfill job: " + job);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Backfill jobs {} failed", jobs, e);
+            exitCode = 1;
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
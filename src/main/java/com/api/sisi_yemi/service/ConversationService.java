@@ -31,6 +31,8 @@ public class ConversationService {
     private final ConversationDynamoDbRepositoryImpl conversationRepository;
     private final DynamoDbUtilHelper dynamoDb;
     private final UserAdDynamoDbRepository userAdRepository;
+    private final TrendingAdsService trendingAdsService;
+    private final ConversationStateCache stateCache;
 
     public List<ConversationDto> getUserConversations(String userId) {
         try {
@@ -53,7 +55,9 @@ public class ConversationService {
         User seller = dynamoDb.getUserTable().getById(item.getUserId())
                 .orElseThrow(() -> new ApiException("Seller not found", NOT_FOUND));
 
-        return createNewSecureConversation(buyer, seller, item);
+        ConversationDto conversation = createNewSecureConversation(buyer, seller, item);
+        trendingAdsService.recordConversation(item);
+        return conversation;
     }
 
     private ConversationDto createNewSecureConversation(User buyer, User seller, UserAd item) {
@@ -72,6 +76,7 @@ public class ConversationService {
                 .build();
 
         Conversation saved = conversationRepository.save(conversation);
+        stateCache.fill(saved);
         return convertToSecureDto(saved, buyer.getId());
     }
 
@@ -0,0 +1,123 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.model.Conversation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Members and unread counts per conversation, so broadcasts can fan out without reading the
+ * conversations table. Entries are filled from conversations the write paths have already read,
+ * and unread counts are overwritten with the values the writes themselves return. Counts changed
+ * through another instance are picked up once the entry expires.
+ */
+@Component
+public class ConversationStateCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ConversationStateCache(MeterRegistry meterRegistry,
+                                  @Value("${messages.conversation-cache.ttl-seconds:300}") long ttlSeconds,
+                                  @Value("${messages.conversation-cache.max-entries:10000}") int maxEntries) {
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.maxEntries = maxEntries;
+
+        this.hits = meterRegistry.counter("messages.conversation.cache.hits");
+        this.misses = meterRegistry.counter("messages.conversation.cache.misses");
+        Gauge.builder("messages.conversation.cache.size", states, Map::size).register(meterRegistry);
+    }
+
+    public record State(String participantId, String sellerId, int participantUnread, int sellerUnread,
+                        long expiresAt) {
+
+        public List<String> memberIds() {
+            List<String> userIds = new ArrayList<>(2);
+            if (participantId != null) userIds.add(participantId);
+            if (sellerId != null && !sellerId.equals(participantId)) userIds.add(sellerId);
+            return userIds;
+        }
+
+        public int unreadFor(String userId) {
+            if (userId.equals(participantId)) return participantUnread;
+            if (userId.equals(sellerId)) return sellerUnread;
+            return 0;
+        }
+
+        private State withUnread(String userId, int unread) {
+            return new State(participantId, sellerId,
+                    userId.equals(participantId) ? unread : participantUnread,
+                    userId.equals(sellerId) ? unread : sellerUnread,
+                    expiresAt);
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    // Null on a miss
+    public State get(String conversationId) {
+        State state = states.get(conversationId);
+        if (state != null && !state.isExpired(System.nanoTime())) {
+            hits.increment();
+            return state;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a conversation that was just read. A live entry is kept as it is: its counts come
+     * from writes, which are at least as recent as any read that started before them.
+     */
+    public State fill(Conversation conversation) {
+        long now = System.nanoTime();
+        State loaded = new State(conversation.getParticipantId(), conversation.getSellerId(),
+                conversation.getParticipantUnread(), conversation.getSellerUnread(), now + ttlNanos);
+
+        if (!states.containsKey(conversation.getId())) {
+            makeRoom();
+        }
+        return states.merge(conversation.getId(), loaded,
+                (existing, fresh) -> existing.isExpired(now) ? fresh : existing);
+    }
+
+    // The count a write just stored; the expiry stays, as the other side's count may still age
+    public void unreadChanged(String conversationId, String userId, int unread) {
+        states.computeIfPresent(conversationId, (id, state) -> state.withUnread(userId, unread));
+    }
+
+    public void invalidate(String conversationId) {
+        states.remove(conversationId);
+    }
+
+    @Scheduled(fixedDelayString = "${messages.conversation-cache.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        states.values().removeIf(state -> state.isExpired(now));
+    }
+
+    private void makeRoom() {
+        if (states.size() >= maxEntries) {
+            evictExpired();
+            if (states.size() >= maxEntries) {
+                states.keySet().stream().findAny().ifPresent(states::remove);
+            }
+        }
+    }
+}
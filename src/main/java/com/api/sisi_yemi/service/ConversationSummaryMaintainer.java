@@ -0,0 +1,59 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.model.Conversation;
+import com.api.sisi_yemi.model.Message;
+import com.api.sisi_yemi.repository.ConversationDynamoDbRepositoryImpl;
+import com.api.sisi_yemi.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Keeps a conversation's last-message summary in step with its messages. Every change is a
+ * targeted update of the summary attributes, conditioned on the message it concerns still being
+ * the last one, so a racing send is never overwritten and nothing is read to find that out.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationSummaryMaintainer {
+
+    private final ConversationDynamoDbRepositoryImpl conversationRepository;
+    private final MessageRepository messageRepository;
+    private final ConversationStateCache stateCache;
+
+    public void messageSent(Conversation conversation, Message message) {
+        String receiverId = message.getSenderId().equals(conversation.getParticipantId())
+                ? conversation.getSellerId()
+                : conversation.getParticipantId();
+        conversationRepository.recordMessage(conversation, message, summaryText(message))
+                .ifPresent(unread -> stateCache.unreadChanged(conversation.getId(), receiverId, unread));
+    }
+
+    public void messageEdited(String conversationId, Message message) {
+        conversationRepository.updateLastMessageText(conversationId, message.getMessageId(), summaryText(message));
+    }
+
+    public void messageDeleted(Conversation conversation, String messageId) {
+        if (!messageId.equals(conversation.getLastMessageId())) return;
+
+        Optional<Message> last = messageRepository.findLatest(conversation.getId());
+        boolean replaced = conversationRepository.replaceLastMessage(conversation.getId(), messageId,
+                last.orElse(null), last.map(ConversationSummaryMaintainer::summaryText).orElse(null));
+        if (!replaced) {
+            log.debug("Conversation {} moved past message {} before its summary was replaced",
+                    conversation.getId(), messageId);
+        }
+    }
+
+    // Use an attachment indicator when there is no text content
+    private static String summaryText(Message message) {
+        String content = message.getContent();
+        if ((content == null || content.isEmpty()) && message.getAttachmentUrl() != null) {
+            return "[Attachment]";
+        }
+        return content;
+    }
+}
@@ -1,8 +1,8 @@
 package com.api.sisi_yemi.service;
 
-import com.api.sisi_yemi.dto.ProfilePreview;
-import com.api.sisi_yemi.dto.ProfileResponse;
+import com.api.sisi_yemi.dto.FavoritesPage;
 import com.api.sisi_yemi.dto.RecentActiveAdResponse;
+import com.api.sisi_yemi.dto.SellerSummary;
 import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.model.Favorite;
 import com.api.sisi_yemi.model.UserAd;
@@ -10,35 +10,57 @@ import com.api.sisi_yemi.repository.FavoriteRepository;
 import com.api.sisi_yemi.util.DynamoDbUtilHelper;
 import com.api.sisi_yemi.util.dynamodb.DynamoDbHelper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class FavoriteService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final FavoriteRepository favoriteRepository;
-    private final ProfileService profileService;
+    private final SellerSummaryCache sellerSummaryCache;
     private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final TrendingAdsService trendingAdsService;
 
-    public List<RecentActiveAdResponse> getUserFavorites(String userId) {
-        List<Favorite> favorites = favoriteRepository.findByUserIdOrderByFavoritedAtDesc(userId);
-        DynamoDbHelper<UserAd> userAdsTable = dynamoDbUtilHelper.getUserAdsTable();
+    /**
+     * One page of favourites, newest first. The page's ads are fetched with a single batch read
+     * and their distinct sellers with one batched summary lookup, however many favourites it holds.
+     */
+    public FavoritesPage getUserFavorites(String userId, int limit, String cursor) {
+        FavoriteRepository.FavoritePage page = favoriteRepository.findPageByUserId(
+                userId, Math.clamp(limit, 1, MAX_PAGE_SIZE), cursor);
+        List<Favorite> favorites = page.favorites();
+
+        Map<String, UserAd> ads = dynamoDbUtilHelper.getUserAdsTable()
+                .batchGetByIds(favorites.stream().map(Favorite::getAdId).toList())
+                .stream()
+                .collect(Collectors.toMap(UserAd::getId, Function.identity()));
 
-        return favorites.stream()
-                .map(favorite -> {
-                    UserAd ad = userAdsTable.getById(favorite.getAdId())
-                            .orElseThrow(() -> new ApiException("Ad not found", HttpStatus.NOT_FOUND, "AD_NOT_FOUND"));
-                    ProfileResponse profile = profileService.getProfile(ad.getUserId());
+        Map<String, SellerSummary> sellers = sellerSummaryCache.getAll(
+                ads.values().stream().map(UserAd::getUserId).collect(Collectors.toSet()));
+
+        List<RecentActiveAdResponse> items = new ArrayList<>(favorites.size());
+        for (Favorite favorite : favorites) {
+            UserAd ad = ads.get(favorite.getAdId());
+            SellerSummary seller = ad != null ? sellers.get(ad.getUserId()) : null;
+            if (seller == null) {
+                // The ad or its seller was deleted after being favourited
+                log.debug("Skipping favourite {} of user {}: ad {} unavailable", favorite.getId(), userId, favorite.getAdId());
+                continue;
+            }
+            items.add(buildAdResponse(ad, seller, favorite.getFavoritedAt()));
+        }
 
-                    return buildAdResponse(ad, profile, favorite.getFavoritedAt());
-                })
-                .collect(Collectors.toList());
+        return new FavoritesPage(items, page.nextCursor(), page.nextCursor() != null);
     }
 
     public RecentActiveAdResponse toggleFavorite(String userId, String adId) {
@@ -47,11 +69,11 @@ public class FavoriteService {
 
         UserAd ad = userAdsTable.getById(adId)
                 .orElseThrow(() -> new ApiException("Ad not found", HttpStatus.NOT_FOUND, "AD_NOT_FOUND"));
-        ProfileResponse profile = profileService.getProfile(ad.getUserId());
+        SellerSummary seller = sellerSummaryCache.get(ad.getUserId());
 
         if (existingFavorite.isPresent()) {
             favoriteRepository.deleteByUserIdAndAdId(userId, adId);
-            return buildAdResponse(ad, profile, null);
+            return buildAdResponse(ad, seller, null);
         } else {
             Favorite newFavorite = Favorite.builder()
                     .userId(userId)
@@ -60,11 +82,12 @@ public class FavoriteService {
                     .createdAt(Instant.now())
                     .build();
             favoriteRepository.save(newFavorite);
-            return buildAdResponse(ad, profile, newFavorite.getFavoritedAt());
+            trendingAdsService.recordFavorite(ad);
+            return buildAdResponse(ad, seller, newFavorite.getFavoritedAt());
         }
     }
 
-    private RecentActiveAdResponse buildAdResponse(UserAd ad, ProfileResponse profile, Instant favoritedAt) {
+    private RecentActiveAdResponse buildAdResponse(UserAd ad, SellerSummary seller, Instant favoritedAt) {
         return RecentActiveAdResponse.builder()
                 .id(ad.getId())
                 .title(ad.getTitle())
@@ -80,14 +103,7 @@ public class FavoriteService {
                 .status(ad.getStatus())
                 .dateSold(ad.getDateSold())
                 .favoritedAt(favoritedAt)
-                .seller(ProfilePreview.builder()
-                        .name(profile.getName())
-                        .avatarUrl(profile.getAvatarUrl())
-                        .rating(profile.getRating())
-                        .itemsSold(profile.getItemsSold())
-                        .responseRate(profile.getResponseRate())
-                        .joinDate(profile.getJoinDate())
-                        .build())
+                .seller(seller.toPreview())
                 .build();
     }
 }
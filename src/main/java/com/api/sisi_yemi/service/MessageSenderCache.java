@@ -0,0 +1,122 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.UserDto;
+import com.api.sisi_yemi.event.UserProfileChangedEvent;
+import com.api.sisi_yemi.util.DynamoDbUtilHelper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded TTL cache of the sender summaries shown on messages. A conversation has two
+ * participants however long it is, so message lists resolve their senders through
+ * {@link #getAll} with at most one batched read of the users table.
+ */
+@Component
+public class MessageSenderCache {
+
+    private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // A load only publishes its result if no invalidation replaced its token meanwhile
+    private final Map<String, Object> loads = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public MessageSenderCache(DynamoDbUtilHelper dynamoDbUtilHelper,
+                              MeterRegistry meterRegistry,
+                              @Value("${messages.sender-cache.ttl-seconds:300}") long ttlSeconds,
+                              @Value("${messages.sender-cache.max-entries:10000}") int maxEntries) {
+        this.dynamoDbUtilHelper = dynamoDbUtilHelper;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.maxEntries = maxEntries;
+
+        this.hits = meterRegistry.counter("messages.sender.cache.hits");
+        this.misses = meterRegistry.counter("messages.sender.cache.misses");
+        Gauge.builder("messages.sender.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    // Null when the user no longer exists
+    public UserDto get(String userId) {
+        return getAll(List.of(userId)).get(userId);
+    }
+
+    // Users that no longer exist are absent from the result
+    public Map<String, UserDto> getAll(Collection<String> userIds) {
+        Map<String, UserDto> senders = new HashMap<>();
+        Map<String, Object> tokens = new HashMap<>();
+        long now = System.nanoTime();
+
+        for (String userId : new HashSet<>(userIds)) {
+            Entry entry = entries.get(userId);
+            if (entry != null && !entry.isExpired(now)) {
+                hits.increment();
+                senders.put(userId, entry.sender());
+            } else {
+                misses.increment();
+                Object token = new Object();
+                loads.put(userId, token);
+                tokens.put(userId, token);
+            }
+        }
+
+        if (!tokens.isEmpty()) {
+            try {
+                dynamoDbUtilHelper.getUserTable().batchGetByIds(tokens.keySet()).forEach(user -> {
+                    UserDto sender = UserDto.fromEntity(user);
+                    put(user.getId(), sender, tokens.get(user.getId()));
+                    senders.put(user.getId(), sender);
+                });
+            } finally {
+                // Users the read did not return, or all of them when it failed, still hold a token
+                tokens.forEach(loads::remove);
+            }
+        }
+        return senders;
+    }
+
+    public void invalidate(String userId) {
+        loads.remove(userId);
+        entries.remove(userId);
+    }
+
+    @EventListener
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${messages.sender-cache.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private void put(String userId, UserDto sender, Object token) {
+        if (!loads.remove(userId, token)) return;
+
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                entries.keySet().stream().findAny().ifPresent(entries::remove);
+            }
+        }
+        entries.put(userId, new Entry(sender, System.nanoTime() + ttlNanos));
+    }
+
+    private record Entry(UserDto sender, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
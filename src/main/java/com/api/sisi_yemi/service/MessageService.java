@@ -1,13 +1,15 @@
 package com.api.sisi_yemi.service;
 
 import com.api.sisi_yemi.dto.MessageDto;
+import com.api.sisi_yemi.dto.MessageHistoryPage;
 import com.api.sisi_yemi.dto.UserDto;
 import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.model.Conversation;
 import com.api.sisi_yemi.model.Message;
-import com.api.sisi_yemi.model.User;
 import com.api.sisi_yemi.repository.ConversationDynamoDbRepositoryImpl;
+import com.api.sisi_yemi.repository.MessageRepository;
 import com.api.sisi_yemi.util.DynamoDbUtilHelper;
+import com.api.sisi_yemi.util.MessageIds;
 import com.api.sisi_yemi.util.dynamodb.DynamoDbHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,8 +26,16 @@ import static org.springframework.http.HttpStatus.*;
 @Slf4j
 public class MessageService {
 
+    public static final int DEFAULT_HISTORY_LIMIT = 30;
+    private static final int MAX_HISTORY_LIMIT = 100;
+    private static final int MAX_MARK_READ_ATTEMPTS = 3;
+
     private final DynamoDbUtilHelper dynamoDbUtilHelper;
     private final ConversationDynamoDbRepositoryImpl conversationRepository;
+    private final MessageRepository messageRepository;
+    private final MessageSenderCache senderCache;
+    private final ConversationSummaryMaintainer summaryMaintainer;
+    private final ConversationStateCache stateCache;
 
     public MessageDto sendMessageHttp(String conversationId, String senderId, String content, String attachmentUrl) {
         if((content == null || content.trim().isEmpty()) && (attachmentUrl == null || attachmentUrl.trim().isEmpty())){
@@ -34,50 +44,78 @@ public class MessageService {
 
         var msgTable = dynamoDbUtilHelper.getMessageTable();
         var convTable = dynamoDbUtilHelper.getConversationTable();
-        var userTable = dynamoDbUtilHelper.getUserTable();
 
         Conversation conversation = getConversationWithValidation(convTable, conversationId, senderId);
-        User sender = getUserWithValidation(userTable, senderId);
+        UserDto sender = getSenderWithValidation(senderId);
 
         Message message = createMessage(conversationId, senderId, content, attachmentUrl);
         msgTable.save(message);
 
-        updateConversationAfterMessage(convTable, conversation, message, senderId);
+        summaryMaintainer.messageSent(conversation, message);
 
         return convertToDto(message, sender);
     }
 
-    public List<MessageDto> getMessages(String conversationId, String userId) {
-        var msgTable = dynamoDbUtilHelper.getMessageTable();
+    /**
+     * A window of the conversation's history: the latest messages, or those strictly before or
+     * after a timestamp cursor. At most one of {@code before} and {@code after} may be given.
+     */
+    public MessageHistoryPage getMessages(String conversationId, String userId,
+                                          LocalDateTime before, LocalDateTime after, int limit) {
+        if (before != null && after != null) {
+            throw new ApiException("Use either before or after, not both", BAD_REQUEST, "INVALID_CURSOR");
+        }
+
         var convTable = dynamoDbUtilHelper.getConversationTable();
-        var userTable = dynamoDbUtilHelper.getUserTable();
 
-        Conversation conversation = getConversationWithValidation(convTable, conversationId, userId);
+        getConversationWithValidation(convTable, conversationId, userId);
 
-        return msgTable.getByPartitionKey(conversationId).stream()
-                .filter(msg -> !msg.isDeleted())
-                .sorted(Comparator.comparing(Message::getTimestamp))
-                .map(msg -> convertToDto(msg, userTable.getById(msg.getSenderId()).orElse(null)))
-                .collect(Collectors.toList());
+        MessageRepository.MessageSlice slice = messageRepository.findSlice(
+                conversationId, before, after, Math.clamp(limit, 1, MAX_HISTORY_LIMIT));
+        List<Message> messages = slice.messages();
+        List<MessageDto> items = convertToDtos(messages);
+
+        // An empty window keeps the caller's cursor so polling can simply continue from it
+        LocalDateTime oldest = messages.isEmpty() ? before : messages.getFirst().getTimestamp();
+        LocalDateTime newest = messages.isEmpty() ? after : messages.getLast().getTimestamp();
+        return new MessageHistoryPage(items, oldest, newest, slice.hasMore());
     }
 
     public void markMessagesAsRead(String conversationId, String userId) {
-        var msgTable = dynamoDbUtilHelper.getMessageTable();
         var convTable = dynamoDbUtilHelper.getConversationTable();
 
         Conversation conversation = getConversationWithValidation(convTable, conversationId, userId);
 
-        List<Message> unreadMessages = msgTable.getByPartitionKey(conversationId).stream()
-                .filter(msg -> !msg.isDeleted())
-                .filter(msg -> !msg.getSenderId().equals(userId) && !msg.isReadBy(userId))
-                .toList();
+        // Already read up to the latest message: nothing to write
+        LocalDateTime lastReadAt = conversation.getLastReadAtForUser(userId);
+        boolean upToDate = conversation.getUnreadForUser(userId) == 0 && lastReadAt != null
+                && (conversation.getTimestamp() == null || !conversation.getTimestamp().isAfter(lastReadAt));
+        LocalDateTime readAt = LocalDateTime.now();
+        if (upToDate || conversationRepository.markRead(conversation, userId, readAt)) {
+            stateCache.unreadChanged(conversationId, userId, 0);
+            return;
+        }
 
-        unreadMessages.forEach(msg -> {
-            msg.markReadBy(userId);
-            msgTable.save(msg);
-        });
+        // Another device got there first, or messages newer than readAt landed and stay unread
+        for (int attempt = 0; attempt < MAX_MARK_READ_ATTEMPTS; attempt++) {
+            Conversation current = getConversationWithValidation(convTable, conversationId, userId);
+            LocalDateTime watermark = current.getLastReadAtForUser(userId);
+            if (watermark != null && !watermark.isBefore(readAt)) {
+                stateCache.unreadChanged(conversationId, userId, current.getUnreadForUser(userId));
+                return;
+            }
 
-        updateUnreadCount(conversation, userId);
+            int unread = (int) messageRepository.findSlice(conversationId, null, readAt, MAX_HISTORY_LIMIT)
+                    .messages().stream()
+                    .filter(message -> !userId.equals(message.getSenderId()))
+                    .count();
+            if (conversationRepository.markRead(current, userId, readAt, unread, current.getLastMessageId())) {
+                stateCache.unreadChanged(conversationId, userId, unread);
+                return;
+            }
+        }
+        log.warn("Gave up marking conversation {} read for user {} after {} attempts",
+                conversationId, userId, MAX_MARK_READ_ATTEMPTS);
     }
 
     public MessageDto editMessage(String conversationId, String messageId, String content, String userId) {
@@ -85,62 +123,23 @@ public class MessageService {
             throw new ApiException("Message content cannot be empty", BAD_REQUEST, "EMPTY_MESSAGE");
         }
 
-        var msgTable = dynamoDbUtilHelper.getMessageTable();
-        var userTable = dynamoDbUtilHelper.getUserTable();
-        var convTable = dynamoDbUtilHelper.getConversationTable();
-
-        Message message = msgTable.getByPartitionKey(conversationId).stream()
-                .filter(m -> m.getMessageId().equals(messageId))
-                .findFirst()
-                .orElseThrow(() -> new ApiException("Message not found", NOT_FOUND, "MESSAGE_NOT_FOUND"));
+        MessageRepository.EditResult edit = messageRepository.edit(
+                conversationId, messageId, userId, content, LocalDateTime.now());
 
-        if (!message.getSenderId().equals(userId)) {
-            throw new ApiException("You can only edit your own messages", FORBIDDEN, "EDIT_NOT_ALLOWED");
+        if (edit.changed()) {
+            summaryMaintainer.messageEdited(conversationId, edit.message());
         }
 
-        // Only update if content changed
-        if (!message.getContent().equals(content)) {
-            message.setContent(content);
-            message.setEdited(true);
-            message.setEditedAt(LocalDateTime.now());
-            msgTable.save(message);
-
-            Conversation conversation = getConversationWithValidation(convTable, conversationId, userId);
-
-            // If this was the last message in the conversation, update it
-            if (messageId.equals(conversation.getLastMessageId())) {
-                conversation.setLastMessage(content);
-                conversation.setTimestamp(LocalDateTime.now());
-                convTable.save(conversation);
-            }
-        }
-
-        User sender = getUserWithValidation(userTable, userId);
-        return convertToDto(message, sender);
+        return convertToDto(edit.message(), getSenderWithValidation(userId));
     }
 
     public void deleteMessage(String conversationId, String messageId, String userId) {
-        var msgTable = dynamoDbUtilHelper.getMessageTable();
         var convTable = dynamoDbUtilHelper.getConversationTable();
 
-        Message message = msgTable.getByPartitionKey(conversationId).stream()
-                .filter(m -> m.getMessageId().equals(messageId))
-                .findFirst()
-                .orElseThrow(() -> new ApiException("Message not found", NOT_FOUND, "MESSAGE_NOT_FOUND"));
-
-        if (!message.getSenderId().equals(userId)) {
-            throw new ApiException("You can only delete your own messages", FORBIDDEN, "DELETE_NOT_ALLOWED");
-        }
-
         Conversation conversation = getConversationWithValidation(convTable, conversationId, userId);
 
-        message.softDelete();
-        msgTable.save(message);
-
-        // If deleted message was last message, update conversation
-        if (messageId.equals(conversation.getLastMessageId())) {
-            updateConversationLastMessage(conversation, msgTable);
-        }
+        messageRepository.softDelete(conversationId, messageId, userId);
+        summaryMaintainer.messageDeleted(conversation, messageId);
     }
 
     // ========== Private Helpers ==========
@@ -154,20 +153,26 @@ public class MessageService {
             throw new ApiException("Access denied", FORBIDDEN, "ACCESS_DENIED");
         }
 
+        stateCache.fill(conversation);
         return conversation;
     }
 
-    private User getUserWithValidation(DynamoDbHelper<User> userTable, String userId) {
-        return userTable.getById(userId)
-                .orElseThrow(() -> new ApiException("User not found", NOT_FOUND, "USER_NOT_FOUND"));
+    private UserDto getSenderWithValidation(String userId) {
+        UserDto sender = senderCache.get(userId);
+        if (sender == null) {
+            throw new ApiException("User not found", NOT_FOUND, "USER_NOT_FOUND");
+        }
+        return sender;
     }
 
     private Message createMessage(String conversationId, String senderId, String content, String attachmentUrl) {
+        // The id encodes the timestamp, which is the sort key, so the message can be addressed directly
+        LocalDateTime timestamp = LocalDateTime.now();
         Message.MessageBuilder builder = Message.builder()
                 .conversationId(conversationId)
-                .messageId(UUID.randomUUID().toString())
+                .messageId(MessageIds.generate(timestamp))
                 .senderId(senderId)
-                .timestamp(LocalDateTime.now())
+                .timestamp(timestamp)
                 .status("delivered");
 
         if (content != null && !content.trim().isEmpty()) {
@@ -206,119 +211,38 @@ public class MessageService {
         }
     }
 
-    private void updateConversationAfterMessage(DynamoDbHelper<Conversation> convTable,
-                                                Conversation conversation,
-                                                Message message,
-                                                String senderId) {
-        String receiverId = senderId.equals(conversation.getParticipantId())
-                ? conversation.getSellerId()
-                : conversation.getParticipantId();
-
-        // Set last message content - use attachment indicator if no text content
-        String lastMessageContent = message.getContent();
-        if ((lastMessageContent == null || lastMessageContent.isEmpty()) && message.getAttachmentUrl() != null) {
-            lastMessageContent = "[Attachment]";
-        }
-
-        conversation.setLastMessage(lastMessageContent);
-        conversation.setLastMessageId(message.getMessageId());
-        conversation.setTimestamp(message.getTimestamp());
-
-        if (!senderId.equals(receiverId)) {
-            if (senderId.equals(conversation.getParticipantId())) {
-                conversation.setSellerUnread(conversation.getSellerUnread() + 1);
-            } else {
-                conversation.setParticipantUnread(conversation.getParticipantUnread() + 1);
-            }
-        }
-
-        convTable.save(conversation);
-    }
-
-    private void updateConversationLastMessage(Conversation conversation, DynamoDbHelper<Message> msgTable) {
-        List<Message> messages = msgTable.getByPartitionKey(conversation.getId()).stream()
-                .filter(msg -> !msg.isDeleted())
-                .sorted(Comparator.comparing(Message::getTimestamp).reversed())
-                .toList();
-
-        if (!messages.isEmpty()) {
-            Message last = messages.get(0);
-            String lastMessageContent = last.getContent();
-            if ((lastMessageContent == null || lastMessageContent.isEmpty()) && last.getAttachmentUrl() != null) {
-                lastMessageContent = "[Attachment]";
-            }
-
-            conversation.setLastMessage(lastMessageContent);
-            conversation.setLastMessageId(last.getMessageId());
-            conversation.setTimestamp(last.getTimestamp());
-        } else {
-            conversation.setLastMessage(null);
-            conversation.setLastMessageId(null);
-            conversation.setTimestamp(LocalDateTime.now());
-        }
-
-        dynamoDbUtilHelper.getConversationTable().save(conversation);
-    }
-
-    private void updateUnreadCount(Conversation conversation, String userId) {
-        var msgTable = dynamoDbUtilHelper.getMessageTable();
+    // Members and unread counts for fan-out; only reads the table when the cache has no entry
+    public ConversationStateCache.State getConversationState(String conversationId) {
+        ConversationStateCache.State state = stateCache.get(conversationId);
+        if (state != null) return state;
 
-        long unreadCount = msgTable.getByPartitionKey(conversation.getId()).stream()
-                .filter(msg -> !msg.isDeleted())
-                .filter(msg -> !msg.getSenderId().equals(userId) && !msg.isReadBy(userId))
-                .count();
-
-        if (userId.equals(conversation.getParticipantId())) {
-            conversation.setParticipantUnread((int) unreadCount);
-        } else {
-            conversation.setSellerUnread((int) unreadCount);
-        }
-
-        dynamoDbUtilHelper.getConversationTable().save(conversation);
-    }
-
-    public List<String> getParticipantUserIds(String conversationId) {
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ApiException("Conversation not found", NOT_FOUND, "CONVERSATION_NOT_FOUND"));
-
-        return conversation.getParticipantUserIds();
+        return stateCache.fill(conversation);
     }
 
-    public int getUnreadCount(String conversationId, String userId) {
-        var convTable = dynamoDbUtilHelper.getConversationTable();
-        Conversation conversation = convTable.getById(conversationId)
-                .orElseThrow(() -> new ApiException("Conversation not found", NOT_FOUND, "CONVERSATION_NOT_FOUND"));
+    // Senders are resolved once per distinct id, not once per message
+    private List<MessageDto> convertToDtos(List<Message> messages) {
+        Set<String> senderIds = messages.stream().map(Message::getSenderId).collect(Collectors.toSet());
+        Map<String, UserDto> senders = senderCache.getAll(senderIds);
 
-        if (userId.equals(conversation.getParticipantId())) {
-            return conversation.getParticipantUnread();
-        } else if (userId.equals(conversation.getSellerId())) {
-            return conversation.getSellerUnread();
-        }
-        throw new ApiException("Access denied", FORBIDDEN, "ACCESS_DENIED");
+        return messages.stream()
+                .map(msg -> convertToDto(msg, senders.get(msg.getSenderId())))
+                .collect(Collectors.toList());
     }
 
-    private MessageDto convertToDto(Message message, User sender) {
+    private MessageDto convertToDto(Message message, UserDto sender) {
         var dto = new MessageDto();
         dto.setId(message.getMessageId());
         dto.setConversationId(message.getConversationId());
         dto.setContent(message.getContent());
         dto.setStatus(message.getStatus());
         dto.setTimestamp(message.getTimestamp());
-        dto.setSender(convertUserDto(sender));
+        dto.setSender(sender);
         dto.setEdited(message.isEdited());
         dto.setEditedAt(message.getEditedAt());
         dto.setAttachmentUrl(message.getAttachmentUrl());
         dto.setAttachmentType(message.getAttachmentType());
         return dto;
     }
-
-    private UserDto convertUserDto(User user) {
-        var dto = new UserDto();
-        dto.setId(user.getId());
-        dto.setName(user.getName());
-        dto.setAvatar(user.getAvatarUrl());
-        dto.setVerified(user.isEmailVerified());
-        dto.setRating(user.getRating());
-        return dto;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.AdNotification;
+import com.api.sisi_yemi.model.UserAd;
+import com.api.sisi_yemi.repository.FavoriteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tells everyone who favourited an ad that its price went down. Favouriters come page by page
+ * from the reverse favourites index; delivery, per-user coalescing and the
+ * {@code priceDropNotifications} setting are left to {@link AdNotificationDispatcher}.
+ */
+@Component
+@Slf4j
+public class PriceDropNotifier {
+
+    private static final int FAVORITER_PAGE_SIZE = 500;
+
+    private final FavoriteRepository favoriteRepository;
+    private final AdNotificationDispatcher notificationDispatcher;
+    private final ExecutorService hydrationExecutor;
+
+    public PriceDropNotifier(FavoriteRepository favoriteRepository,
+                             AdNotificationDispatcher notificationDispatcher,
+                             ExecutorService hydrationExecutor) {
+        this.favoriteRepository = favoriteRepository;
+        this.notificationDispatcher = notificationDispatcher;
+        this.hydrationExecutor = hydrationExecutor;
+    }
+
+    public static boolean isPriceDrop(UserAd previous, UserAd current) {
+        return current.getStatus() == UserAd.AdStatus.ACTIVE
+                && previous.getStatus() == UserAd.AdStatus.ACTIVE
+                && current.getPrice() < previous.getPrice();
+    }
+
+    // Runs off the request thread: a popular ad can have thousands of favouriters
+    public void notifyPriceDrop(UserAd previous, UserAd current) {
+        String imageUrl = current.getImages() != null && !current.getImages().isEmpty()
+                ? current.getImages().getFirst().getUrl()
+                : null;
+        AdNotification notification = new AdNotification(AdNotification.Type.PRICE_DROP, current.getId(),
+                current.getTitle(), current.getPrice(), previous.getPrice(), imageUrl, null, null, Instant.now());
+
+        CompletableFuture.runAsync(() -> favoriteRepository.forEachFavoriterPage(current.getId(), FAVORITER_PAGE_SIZE,
+                        userIds -> userIds.stream()
+                                .filter(userId -> !userId.equals(current.getUserId()))
+                                .forEach(userId -> notificationDispatcher.enqueue(userId, notification))),
+                        hydrationExecutor)
+                .exceptionally(e -> {
+                    log.error("Price drop fan-out failed for ad {}", current.getId(), e);
+                    return null;
+                });
+    }
+}
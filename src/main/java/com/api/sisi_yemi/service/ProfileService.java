@@ -1,34 +1,47 @@
 package com.api.sisi_yemi.service;
 
 import com.api.sisi_yemi.dto.ProfileResponse;
+import com.api.sisi_yemi.dto.SellerSummary;
 import com.api.sisi_yemi.dto.UpdateProfileRequest;
+import com.api.sisi_yemi.event.UserProfileChangedEvent;
 import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.model.User;
-import com.api.sisi_yemi.model.UserAd;
-import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
+import com.api.sisi_yemi.model.UserAdStats;
 import com.api.sisi_yemi.util.dynamodb.DynamoDbHelper;
 import com.api.sisi_yemi.util.dynamodb.DynamoDbHelperFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 public class ProfileService {
 
     private final DynamoDbHelperFactory dynamoDbHelperFactory;
-    private final UserAdDynamoDbRepository userAdRepository;
+    private final UserAdStatsService userAdStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService hydrationExecutor;
     private final String USER_TABLE_NAME;
 
     public ProfileService(DynamoDbHelperFactory dynamoDbHelperFactory,
-                          UserAdDynamoDbRepository userAdRepository,
+                          UserAdStatsService userAdStatsService,
+                          ApplicationEventPublisher eventPublisher,
+                          ExecutorService hydrationExecutor,
                           @Value("${users.table}") String USER_TABLE_NAME) {
         this.dynamoDbHelperFactory = dynamoDbHelperFactory;
-        this.userAdRepository = userAdRepository;
+        this.userAdStatsService = userAdStatsService;
+        this.eventPublisher = eventPublisher;
+        this.hydrationExecutor = hydrationExecutor;
         this.USER_TABLE_NAME = USER_TABLE_NAME;
     }
 
@@ -38,8 +51,6 @@ public class ProfileService {
         User user = userHelper.getById(userId)
                 .orElseThrow(() -> new ApiException("User not found", HttpStatus.BAD_REQUEST, "USER_NOT_FOUND"));
 
-        List<UserAd> userAds = userAdRepository.findByUserId(userId);
-
         return ProfileResponse.builder()
                 .name(user.getName())
                 .email(user.getEmail())
@@ -50,9 +61,7 @@ public class ProfileService {
                 .avatarUrl(user.getAvatarUrl())
                 .rating(user.getRating())
                 .itemsSold(user.getItemsSold())
-                .activeListings((int) userAds.stream()
-                        .filter(ad -> ad.getStatus() == UserAd.AdStatus.ACTIVE)
-                        .count())
+                .activeListings((int) userAdStatsService.getStats(userId).getActiveCount())
                 .responseRate(user.getResponseRate())
                 .emailVerified(user.isEmailVerified())
                 .phoneVerified(user.isPhoneVerified())
@@ -91,6 +100,49 @@ public class ProfileService {
 
 
         userHelper.save(user);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
+    }
+
+    // Uncached; callers go through SellerSummaryCache
+    public SellerSummary loadSellerSummary(String userId) {
+        DynamoDbHelper<User> userHelper = dynamoDbHelperFactory.getHelper(USER_TABLE_NAME, User.class);
+
+        User user = userHelper.getById(userId)
+                .orElseThrow(() -> new ApiException("User not found", HttpStatus.BAD_REQUEST, "USER_NOT_FOUND"));
+
+        return toSellerSummary(user, userAdStatsService.getStats(userId).getActiveCount());
+    }
+
+    // Users and their stats are batch-read side by side; unknown users are left out
+    public Map<String, SellerSummary> loadSellerSummaries(Collection<String> userIds) {
+        DynamoDbHelper<User> userHelper = dynamoDbHelperFactory.getHelper(USER_TABLE_NAME, User.class);
+
+        CompletableFuture<List<User>> users = CompletableFuture.supplyAsync(
+                () -> userHelper.batchGetByIds(userIds), hydrationExecutor);
+        CompletableFuture<Map<String, UserAdStats>> stats = CompletableFuture.supplyAsync(
+                () -> userAdStatsService.getStats(userIds), hydrationExecutor);
+
+        Map<String, SellerSummary> summaries = new HashMap<>();
+        Map<String, UserAdStats> statsByUser = stats.join();
+        for (User user : users.join()) {
+            UserAdStats userStats = statsByUser.get(user.getId());
+            summaries.put(user.getId(), toSellerSummary(user, userStats != null ? userStats.getActiveCount() : 0));
+        }
+        return summaries;
+    }
+
+    public SellerSummary toSellerSummary(User user, long activeListingCount) {
+        return SellerSummary.builder()
+                .userId(user.getId())
+                .name(user.getName())
+                .avatarUrl(user.getAvatarUrl())
+                .rating(user.getRating())
+                .reviews(user.getReviews())
+                .itemsSold(user.getItemsSold())
+                .responseRate(user.getResponseRate())
+                .joinDate(formatJoinDate(user.getJoinDate()))
+                .activeListingCount(activeListingCount)
+                .build();
     }
 
     public String formatJoinDate(Instant joinDate) {
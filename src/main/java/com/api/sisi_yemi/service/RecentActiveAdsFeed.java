@@ -0,0 +1,221 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.RecentActiveAdResponse;
+import com.api.sisi_yemi.event.AdChangedEvent;
+import com.api.sisi_yemi.model.UserAd;
+import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory buffer of the newest active ads backing {@code /api/users/recent}.
+ * Writers rebuild an immutable snapshot (entries plus the serialised JSON array) and
+ * swap it in with a CAS, so readers never lock and never touch DynamoDB once seeded.
+ * <p>
+ * Seeding runs as a single background task at a time. Ad changes replace the snapshot even
+ * before the first seed, so a seed whose query raced a change loses its CAS and queries again
+ * rather than overwriting the change with an older page.
+ */
+@Component
+@Slf4j
+public class RecentActiveAdsFeed {
+
+    private static final byte[] EMPTY_PAYLOAD = "[]".getBytes(StandardCharsets.UTF_8);
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing(Entry::datePosted, Comparator.reverseOrder())
+            .thenComparing(Entry::id);
+
+    private static final int MAX_SEED_ATTEMPTS = 3;
+
+    private final UserAdDynamoDbRepository userAdRepository;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService hydrationExecutor;
+    private final int limit;
+    private final int capacity;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.unseeded());
+    private final AtomicBoolean seeding = new AtomicBoolean();
+
+    public RecentActiveAdsFeed(UserAdDynamoDbRepository userAdRepository,
+                               ObjectMapper objectMapper,
+                               ExecutorService hydrationExecutor,
+                               @Value("${ads.recent.limit:10}") int limit,
+                               @Value("${ads.recent.capacity:50}") int capacity) {
+        this.userAdRepository = userAdRepository;
+        this.objectMapper = objectMapper;
+        this.hydrationExecutor = hydrationExecutor;
+        this.limit = limit;
+        this.capacity = Math.max(limit, capacity);
+    }
+
+    /**
+     * The serialised page. Until the first seed lands the page is read straight from DynamoDB,
+     * without touching the buffer.
+     */
+    public byte[] payload() {
+        Snapshot current = snapshot.get();
+        if (current.seeded()) {
+            return current.payload().clone();
+        }
+
+        requestSeed();
+        List<UserAd> ads = userAdRepository.findRecentActiveAds(limit);
+        return build(toEntries(ads, limit), false).payload();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void requestSeed() {
+        if (!seeding.compareAndSet(false, true)) return;
+        try {
+            hydrationExecutor.execute(() -> {
+                try {
+                    seed();
+                } finally {
+                    seeding.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            seeding.set(false);
+            log.error("Failed to schedule seeding of recent active ads feed", e);
+        }
+    }
+
+    private void seed() {
+        try {
+            for (int attempt = 1; attempt <= MAX_SEED_ATTEMPTS; attempt++) {
+                Snapshot before = snapshot.get();
+                List<UserAd> ads = userAdRepository.findRecentActiveAds(capacity);
+                Entry[] entries = toEntries(ads, capacity);
+
+                // A short page means DynamoDB holds nothing beyond what is buffered
+                if (snapshot.compareAndSet(before, build(entries, ads.size() < capacity))) {
+                    log.info("Recent active ads feed seeded with {} ads", entries.length);
+                    return;
+                }
+            }
+            log.warn("Recent active ads feed kept changing while seeding; leaving it for the next seed");
+        } catch (Exception e) {
+            log.error("Failed to seed recent active ads feed", e);
+        }
+    }
+
+    @EventListener
+    public void onAdChanged(AdChangedEvent event) {
+        try {
+            if (event.isDeleted() || event.current().getStatus() != UserAd.AdStatus.ACTIVE) {
+                remove(event.adId());
+            } else {
+                upsert(event.current());
+            }
+        } catch (Exception e) {
+            log.error("Failed to apply ad {} to recent feed", event.adId(), e);
+        }
+    }
+
+    private void upsert(UserAd ad) {
+        Entry entry = toEntry(ad);
+        if (entry == null) return;
+
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            if (!current.seeded()) {
+                next = Snapshot.unseeded();
+                continue;
+            }
+
+            List<Entry> entries = new ArrayList<>(current.entries().length + 1);
+            for (Entry existing : current.entries()) {
+                if (!existing.id().equals(entry.id())) entries.add(existing);
+            }
+            entries.add(entry);
+            entries.sort(NEWEST_FIRST);
+
+            boolean exhaustive = current.exhaustive() && entries.size() <= capacity;
+            next = build(entries.stream().limit(capacity).toArray(Entry[]::new), exhaustive);
+        } while (!snapshot.compareAndSet(current, next));
+    }
+
+    private void remove(String adId) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            if (!current.seeded()) {
+                next = Snapshot.unseeded();
+                continue;
+            }
+
+            Entry[] entries = Arrays.stream(current.entries())
+                    .filter(existing -> !existing.id().equals(adId))
+                    .toArray(Entry[]::new);
+            if (entries.length == current.entries().length) return;
+
+            next = build(entries, current.exhaustive());
+        } while (!snapshot.compareAndSet(current, next));
+
+        // Older ads were evicted earlier, so reload once the buffer can no longer fill a page
+        if (next.seeded() && !next.exhaustive() && next.entries().length < limit) {
+            requestSeed();
+        }
+    }
+
+    private Entry[] toEntries(List<UserAd> ads, int max) {
+        return ads.stream()
+                .filter(ad -> ad.getStatus() == UserAd.AdStatus.ACTIVE)
+                .map(this::toEntry)
+                .filter(Objects::nonNull)
+                .sorted(NEWEST_FIRST)
+                .limit(max)
+                .toArray(Entry[]::new);
+    }
+
+    private Entry toEntry(UserAd ad) {
+        try {
+            RecentActiveAdResponse response = RecentActiveAdResponse.fromEntity(ad);
+            return new Entry(response.getId(), response.getDatePosted(), objectMapper.writeValueAsBytes(response));
+        } catch (Exception e) {
+            log.error("Error serialising ad {} for recent feed", ad.getId(), e);
+            return null;
+        }
+    }
+
+    private Snapshot build(Entry[] entries, boolean exhaustive) {
+        int served = Math.min(limit, entries.length);
+        if (served == 0) {
+            return new Snapshot(entries, EMPTY_PAYLOAD, exhaustive, true);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        for (int i = 0; i < served; i++) {
+            if (i > 0) out.write(',');
+            out.writeBytes(entries[i].json());
+        }
+        out.write(']');
+        return new Snapshot(entries, out.toByteArray(), exhaustive, true);
+    }
+
+    private record Entry(String id, Instant datePosted, byte[] json) {}
+
+    private record Snapshot(Entry[] entries, byte[] payload, boolean exhaustive, boolean seeded) {
+        // A fresh instance per change, so a seed that raced the change fails its CAS
+        static Snapshot unseeded() {
+            return new Snapshot(new Entry[0], EMPTY_PAYLOAD, false, false);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.AdNotification;
+import com.api.sisi_yemi.event.AdChangedEvent;
+import com.api.sisi_yemi.model.SavedSearch;
+import com.api.sisi_yemi.model.UserAd;
+import com.api.sisi_yemi.repository.SavedSearchRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reverse matching of ads against saved searches. Each search is posted under its single most
+ * selective predicate (category, then location, then a narrow price band, then its longest
+ * keyword), so an ad only gathers the searches posted under its own category, location, price
+ * band and title words, and verifies those in full. Searches with no usable predicate are
+ * checked against every ad.
+ */
+@Component
+@Slf4j
+public class SavedSearchPercolator {
+
+    // A price range spanning more power-of-two bands than this is too broad to be worth posting
+    private static final int MAX_PRICE_BANDS = 3;
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final AdNotificationDispatcher notificationDispatcher;
+    private final Timer percolateTimer;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // Non-null while seeding; changes seen meanwhile are replayed onto the fresh index
+    private Map<String, SavedSearch> changedDuringSeed;
+
+    public SavedSearchPercolator(SavedSearchRepository savedSearchRepository,
+                                 AdNotificationDispatcher notificationDispatcher,
+                                 MeterRegistry meterRegistry) {
+        this.savedSearchRepository = savedSearchRepository;
+        this.notificationDispatcher = notificationDispatcher;
+        this.percolateTimer = Timer.builder("ads.saved-searches.percolate")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("ads.saved-searches.indexed", this, SavedSearchPercolator::size).register(meterRegistry);
+    }
+
+    public void register(SavedSearch search) {
+        change(search.getId(), search);
+    }
+
+    public void unregister(String searchId) {
+        change(searchId, null);
+    }
+
+    // Saved searches created through other instances are picked up on the next reseed
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${ads.saved-searches.reseed-interval-ms:3600000}",
+            fixedDelayString = "${ads.saved-searches.reseed-interval-ms:3600000}")
+    public void seed() {
+        lock.writeLock().lock();
+        try {
+            changedDuringSeed = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Index seeded = new Index();
+            savedSearchRepository.forEach(search -> seeded.put(search.getId(), search));
+
+            lock.writeLock().lock();
+            try {
+                changedDuringSeed.forEach(seeded::put);
+                index = seeded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Saved search percolator seeded with {} searches", seeded.searches.size());
+        } catch (Exception e) {
+            log.error("Failed to seed saved search percolator", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringSeed = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @EventListener
+    public void onAdChanged(AdChangedEvent event) {
+        UserAd ad = event.current();
+        if (ad == null || ad.getStatus() != UserAd.AdStatus.ACTIVE) return;
+
+        // An update only alerts the searches it newly satisfies
+        UserAd previous = event.previous() != null && event.previous().getStatus() == UserAd.AdStatus.ACTIVE
+                ? event.previous()
+                : null;
+        if (previous != null && !searchableFieldsChanged(previous, ad)) return;
+
+        List<SavedSearch> matches = percolateTimer.record(() -> percolate(ad, previous));
+        if (matches.isEmpty()) return;
+
+        String imageUrl = ad.getImages() != null && !ad.getImages().isEmpty()
+                ? ad.getImages().getFirst().getUrl()
+                : null;
+        Instant now = Instant.now();
+        for (SavedSearch search : matches) {
+            notificationDispatcher.enqueue(search.getUserId(), new AdNotification(
+                    AdNotification.Type.SAVED_SEARCH_MATCH, ad.getId(), ad.getTitle(), ad.getPrice(), null,
+                    imageUrl, search.getId(), search.getName(), now));
+        }
+    }
+
+    List<SavedSearch> percolate(UserAd ad, UserAd previous) {
+        AdTerms terms = AdTerms.of(ad);
+        AdTerms previousTerms = previous != null ? AdTerms.of(previous) : null;
+
+        lock.readLock().lock();
+        try {
+            List<SavedSearch> matches = new ArrayList<>();
+            for (String searchId : index.candidates(terms)) {
+                SavedSearch search = index.searches.get(searchId);
+                if (search == null || Objects.equals(search.getUserId(), ad.getUserId())) continue;
+
+                if (matches(search, terms) && (previousTerms == null || !matches(search, previousTerms))) {
+                    matches.add(search);
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void change(String searchId, SavedSearch search) {
+        lock.writeLock().lock();
+        try {
+            index.put(searchId, search);
+            if (changedDuringSeed != null) {
+                changedDuringSeed.put(searchId, search);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return index.searches.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matches(SavedSearch search, AdTerms ad) {
+        if (search.getMinPrice() != null && ad.price() < search.getMinPrice()) return false;
+        if (search.getMaxPrice() != null && ad.price() > search.getMaxPrice()) return false;
+        if (!matchesTerm(search.getCategory(), ad.category())) return false;
+        if (!matchesTerm(search.getLocation(), ad.location())) return false;
+        if (!matchesTerm(search.getCondition(), ad.condition())) return false;
+        return ad.titleWords().containsAll(words(search.getQuery()));
+    }
+
+    private static boolean matchesTerm(String wanted, String actual) {
+        String normalised = AdSuggestionService.normalise(wanted);
+        return normalised.isEmpty() || normalised.equals(actual);
+    }
+
+    private static boolean searchableFieldsChanged(UserAd previous, UserAd current) {
+        return !Objects.equals(previous.getTitle(), current.getTitle())
+                || previous.getPrice() != current.getPrice()
+                || !Objects.equals(previous.getCategory(), current.getCategory())
+                || !Objects.equals(previous.getLocation(), current.getLocation())
+                || !Objects.equals(previous.getCondition(), current.getCondition());
+    }
+
+    private static Set<String> words(String text) {
+        String normalised = AdSuggestionService.normalise(text);
+        return normalised.isEmpty() ? Set.of() : new HashSet<>(Arrays.asList(normalised.split(" ")));
+    }
+
+    // Power-of-two price buckets: 0 for anything up to 1, then [2^n, 2^(n+1))
+    private static int priceBand(double price) {
+        return price < 2 ? 0 : Math.min(62, Math.getExponent(price));
+    }
+
+    private record AdTerms(String category, String location, String condition, double price,
+                           Set<String> titleWords) {
+        static AdTerms of(UserAd ad) {
+            return new AdTerms(AdSuggestionService.normalise(ad.getCategory()),
+                    AdSuggestionService.normalise(ad.getLocation()),
+                    AdSuggestionService.normalise(ad.getCondition()),
+                    ad.getPrice(),
+                    words(ad.getTitle()));
+        }
+    }
+
+    private record Posting(Map<String, Set<String>> postings, List<String> keys) {}
+
+    // Not thread-safe; guarded by the percolator's lock
+    private static final class Index {
+        private final Map<String, SavedSearch> searches = new HashMap<>();
+        private final Map<String, Posting> postings = new HashMap<>();
+        private final Map<String, Set<String>> byCategory = new HashMap<>();
+        private final Map<String, Set<String>> byLocation = new HashMap<>();
+        private final Map<String, Set<String>> byPriceBand = new HashMap<>();
+        private final Map<String, Set<String>> byKeyword = new HashMap<>();
+        private final Set<String> unindexed = new HashSet<>();
+
+        // A null search removes whatever was posted under the id
+        void put(String searchId, SavedSearch search) {
+            searches.remove(searchId);
+            unindexed.remove(searchId);
+            Posting previous = postings.remove(searchId);
+            if (previous != null) {
+                for (String key : previous.keys()) {
+                    Set<String> ids = previous.postings().get(key);
+                    if (ids != null && ids.remove(searchId) && ids.isEmpty()) {
+                        previous.postings().remove(key);
+                    }
+                }
+            }
+
+            if (search == null) return;
+            searches.put(searchId, search);
+
+            Posting posting = choosePosting(search);
+            if (posting == null) {
+                unindexed.add(searchId);
+                return;
+            }
+            posting.keys().forEach(key ->
+                    posting.postings().computeIfAbsent(key, k -> new HashSet<>()).add(searchId));
+            postings.put(searchId, posting);
+        }
+
+        Set<String> candidates(AdTerms ad) {
+            Set<String> candidates = new HashSet<>(unindexed);
+            addAll(candidates, byCategory.get(ad.category()));
+            addAll(candidates, byLocation.get(ad.location()));
+            addAll(candidates, byPriceBand.get(Integer.toString(priceBand(ad.price()))));
+            ad.titleWords().forEach(word -> addAll(candidates, byKeyword.get(word)));
+            return candidates;
+        }
+
+        private Posting choosePosting(SavedSearch search) {
+            String category = AdSuggestionService.normalise(search.getCategory());
+            if (!category.isEmpty()) return new Posting(byCategory, List.of(category));
+
+            String location = AdSuggestionService.normalise(search.getLocation());
+            if (!location.isEmpty()) return new Posting(byLocation, List.of(location));
+
+            if (search.getMaxPrice() != null) {
+                int low = priceBand(search.getMinPrice() != null ? search.getMinPrice() : 0);
+                int high = priceBand(search.getMaxPrice());
+                if (high - low < MAX_PRICE_BANDS) {
+                    List<String> bands = new ArrayList<>();
+                    for (int band = low; band <= high; band++) {
+                        bands.add(Integer.toString(band));
+                    }
+                    return new Posting(byPriceBand, bands);
+                }
+            }
+
+            // Longer words tend to be rarer in titles
+            return words(search.getQuery()).stream()
+                    .max(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()))
+                    .map(word -> new Posting(byKeyword, List.of(word)))
+                    .orElse(null);
+        }
+
+        private static void addAll(Set<String> target, Set<String> ids) {
+            if (ids != null) target.addAll(ids);
+        }
+    }
+}
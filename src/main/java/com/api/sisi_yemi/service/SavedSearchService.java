@@ -0,0 +1,85 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.SavedSearchRequest;
+import com.api.sisi_yemi.exception.ApiException;
+import com.api.sisi_yemi.model.SavedSearch;
+import com.api.sisi_yemi.repository.SavedSearchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class SavedSearchService {
+
+    private static final int MAX_SAVED_SEARCHES_PER_USER = 20;
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final SavedSearchPercolator savedSearchPercolator;
+
+    public List<SavedSearch> getSavedSearches(String userId) {
+        return savedSearchRepository.findByUserId(userId).stream()
+                .sorted(Comparator.comparing(SavedSearch::getCreatedAt).reversed())
+                .toList();
+    }
+
+    public SavedSearch createSavedSearch(String userId, SavedSearchRequest request) {
+        if (isBlank(request.getQuery()) && isBlank(request.getCategory()) && isBlank(request.getLocation())
+                && request.getMinPrice() == null && request.getMaxPrice() == null) {
+            throw new ApiException("A saved search needs at least one criterion", HttpStatus.BAD_REQUEST,
+                    "EMPTY_SAVED_SEARCH");
+        }
+        if (request.getMinPrice() != null && request.getMaxPrice() != null
+                && request.getMinPrice() > request.getMaxPrice()) {
+            throw new ApiException("minPrice must not exceed maxPrice", HttpStatus.BAD_REQUEST, "INVALID_PRICE_RANGE");
+        }
+        if (savedSearchRepository.findByUserId(userId).size() >= MAX_SAVED_SEARCHES_PER_USER) {
+            throw new ApiException("You can keep at most " + MAX_SAVED_SEARCHES_PER_USER + " saved searches",
+                    HttpStatus.BAD_REQUEST, "TOO_MANY_SAVED_SEARCHES");
+        }
+
+        SavedSearch search = SavedSearch.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .name(request.getName())
+                .query(trimToNull(request.getQuery()))
+                .category(trimToNull(request.getCategory()))
+                .location(trimToNull(request.getLocation()))
+                .condition(trimToNull(request.getCondition()))
+                .minPrice(request.getMinPrice())
+                .maxPrice(request.getMaxPrice())
+                .createdAt(Instant.now())
+                .build();
+
+        savedSearchRepository.save(search);
+        savedSearchPercolator.register(search);
+        return search;
+    }
+
+    public void deleteSavedSearch(String userId, String searchId) {
+        SavedSearch search = savedSearchRepository.findById(searchId)
+                .orElseThrow(() -> new ApiException("Saved search not found", HttpStatus.NOT_FOUND,
+                        "SAVED_SEARCH_NOT_FOUND"));
+
+        if (!search.getUserId().equals(userId)) {
+            throw new ApiException("Not authorized to delete this saved search", HttpStatus.FORBIDDEN,
+                    "UNAUTHORIZED_OPERATION");
+        }
+
+        savedSearchRepository.deleteById(searchId);
+        savedSearchPercolator.unregister(searchId);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String trimToNull(String value) {
+        return isBlank(value) ? null : value.trim();
+    }
+}
@@ -0,0 +1,140 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.SellerSummary;
+import com.api.sisi_yemi.event.AdChangedEvent;
+import com.api.sisi_yemi.event.UserProfileChangedEvent;
+import com.api.sisi_yemi.model.UserAd;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TTL cache of {@link SellerSummary} for ad pages and favourites. Entries are dropped as soon
+ * as the seller's profile or active listing count changes; the TTL only bounds staleness from
+ * writes made through other instances.
+ */
+@Component
+public class SellerSummaryCache {
+
+    private final ProfileService profileService;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // A load only publishes its result if no invalidation replaced its token meanwhile
+    private final Map<String, Object> loads = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public SellerSummaryCache(ProfileService profileService,
+                              MeterRegistry meterRegistry,
+                              @Value("${sellers.summary.ttl-seconds:300}") long ttlSeconds,
+                              @Value("${sellers.summary.max-entries:10000}") int maxEntries) {
+        this.profileService = profileService;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.maxEntries = maxEntries;
+
+        this.hits = meterRegistry.counter("sellers.summary.cache.hits");
+        this.misses = meterRegistry.counter("sellers.summary.cache.misses");
+        Gauge.builder("sellers.summary.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    public SellerSummary get(String userId) {
+        Entry entry = entries.get(userId);
+        if (entry != null && !entry.isExpired(System.nanoTime())) {
+            hits.increment();
+            return entry.summary();
+        }
+
+        misses.increment();
+        Object token = new Object();
+        loads.put(userId, token);
+        SellerSummary summary = profileService.loadSellerSummary(userId);
+        put(userId, summary, token);
+        return summary;
+    }
+
+    // Misses are loaded together in one batched round trip
+    public Map<String, SellerSummary> getAll(Collection<String> userIds) {
+        Map<String, SellerSummary> summaries = new HashMap<>();
+        Map<String, Object> tokens = new HashMap<>();
+        long now = System.nanoTime();
+
+        for (String userId : new HashSet<>(userIds)) {
+            Entry entry = entries.get(userId);
+            if (entry != null && !entry.isExpired(now)) {
+                hits.increment();
+                summaries.put(userId, entry.summary());
+            } else {
+                misses.increment();
+                Object token = new Object();
+                loads.put(userId, token);
+                tokens.put(userId, token);
+            }
+        }
+
+        if (!tokens.isEmpty()) {
+            profileService.loadSellerSummaries(tokens.keySet()).forEach((userId, summary) -> {
+                put(userId, summary, tokens.get(userId));
+                summaries.put(userId, summary);
+            });
+        }
+        return summaries;
+    }
+
+    public void invalidate(String userId) {
+        loads.remove(userId);
+        entries.remove(userId);
+    }
+
+    @EventListener
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @EventListener
+    public void onAdChanged(AdChangedEvent event) {
+        // Only the active listing count is derived from ads
+        if (isActive(event.previous()) != isActive(event.current())) {
+            invalidate(event.userId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sellers.summary.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private void put(String userId, SellerSummary summary, Object token) {
+        if (!loads.remove(userId, token)) return;
+
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                // Still full of live entries: make room with an arbitrary one rather than grow
+                entries.keySet().stream().findAny().ifPresent(entries::remove);
+            }
+        }
+        entries.put(userId, new Entry(summary, System.nanoTime() + ttlNanos));
+    }
+
+    private static boolean isActive(UserAd ad) {
+        return ad != null && ad.getStatus() == UserAd.AdStatus.ACTIVE;
+    }
+
+    private record Entry(SellerSummary summary, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.TrendingAdResponse;
+import com.api.sisi_yemi.event.AdChangedEvent;
+import com.api.sisi_yemi.model.UserAd;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ranks ads by exponentially decayed engagement (views, favourites, conversation starts).
+ * Scores use forward decay against a moving landmark, so older contributions never need
+ * rewriting; rescaling the landmark scales every score alike and leaves the order intact.
+ * <p>
+ * Engagement and ad changes are only accumulated per ad on the request thread. A short timer
+ * folds them into ordered sets per category and publishes the top K of each touched category
+ * as an immutable snapshot, so recording costs no global lock and reads are O(K) and lock-free.
+ */
+@Service
+@Slf4j
+public class TrendingAdsService {
+
+    private static final String ALL_CATEGORIES = "*";
+    // Rescale well before exp() overflows a double (~709)
+    private static final double MAX_EXPONENT = 300;
+
+    private static final Comparator<Entry> HIGHEST_FIRST = Comparator
+            .comparingDouble((Entry entry) -> entry.score).reversed()
+            .thenComparing(entry -> entry.id);
+
+    private final double lambdaPerMilli;
+    private final double viewWeight;
+    private final double favoriteWeight;
+    private final double conversationWeight;
+    private final double minScore;
+    private final int topK;
+
+    private final Map<String, Change> pending = new ConcurrentHashMap<>();
+    private final Map<String, TrendingAdResponse[]> rankings = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, TreeSet<Entry>> ranked = new HashMap<>();
+    private long landmark = System.currentTimeMillis();
+
+    public TrendingAdsService(@Value("${ads.trending.half-life-hours:12}") double halfLifeHours,
+                              @Value("${ads.trending.weight.view:1}") double viewWeight,
+                              @Value("${ads.trending.weight.favorite:5}") double favoriteWeight,
+                              @Value("${ads.trending.weight.conversation:10}") double conversationWeight,
+                              @Value("${ads.trending.min-score:0.05}") double minScore,
+                              @Value("${ads.trending.top-k:50}") int topK) {
+        this.lambdaPerMilli = Math.log(2) / (halfLifeHours * 3_600_000d);
+        this.viewWeight = viewWeight;
+        this.favoriteWeight = favoriteWeight;
+        this.conversationWeight = conversationWeight;
+        this.minScore = minScore;
+        this.topK = topK;
+    }
+
+    public void recordView(UserAd ad) {
+        record(ad, viewWeight);
+    }
+
+    public void recordFavorite(UserAd ad) {
+        record(ad, favoriteWeight);
+    }
+
+    public void recordConversation(UserAd ad) {
+        record(ad, conversationWeight);
+    }
+
+    public List<TrendingAdResponse> getTrending(String category, int limit) {
+        String key = category == null || category.isBlank() ? ALL_CATEGORIES : categoryKey(category);
+        TrendingAdResponse[] ranking = rankings.get(key);
+        if (ranking == null) return List.of();
+
+        return Arrays.asList(Arrays.copyOf(ranking, Math.min(Math.max(limit, 0), ranking.length)));
+    }
+
+    @EventListener
+    public void onAdChanged(AdChangedEvent event) {
+        if (event.isDeleted() || event.current().getStatus() != UserAd.AdStatus.ACTIVE) {
+            pending.compute(event.adId(), (id, change) -> {
+                if (change == null) change = new Change();
+                change.removed = true;
+                change.reset = true;
+                change.weight = 0;
+                change.card = null;
+                return change;
+            });
+        } else {
+            // No engagement, but a ranked ad picks up its edited title, price, image or category
+            record(event.current(), 0);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ads.trending.publish-interval-ms:1000}")
+    public synchronized void publishChanges() {
+        if (pending.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        if (lambdaPerMilli * (now - landmark) > MAX_EXPONENT) {
+            rescale(now);
+            rebuild();
+        }
+
+        double growth = Math.exp(lambdaPerMilli * (now - landmark));
+        Set<String> touched = new HashSet<>();
+        for (String adId : pending.keySet()) {
+            // Removed under the key's lock, so no record can still be writing to it
+            Change change = pending.remove(adId);
+            if (change != null) apply(adId, change, growth, touched);
+        }
+
+        if (!touched.isEmpty()) {
+            touched.add(ALL_CATEGORIES);
+            touched.forEach(category -> publish(category, now));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ads.trending.maintenance-interval-ms:600000}")
+    public synchronized void maintain() {
+        long now = System.currentTimeMillis();
+        rescale(now);
+
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.score < minScore);
+        rebuild();
+        if (entries.size() != before) {
+            log.debug("Pruned {} cold ads from trending scores", before - entries.size());
+        }
+
+        // Republish everything so the published scores reflect the decay since the last change
+        Set<String> categories = new HashSet<>(rankings.keySet());
+        categories.addAll(ranked.keySet());
+        categories.forEach(category -> publish(category, now));
+    }
+
+    private void record(UserAd ad, double weight) {
+        if (ad == null || ad.getId() == null || ad.getStatus() != UserAd.AdStatus.ACTIVE) return;
+
+        try {
+            TrendingAdResponse card = toCard(ad);
+            String category = categoryKey(ad.getCategory());
+            pending.compute(ad.getId(), (id, change) -> {
+                if (change == null) change = new Change();
+                change.removed = false;
+                change.weight += weight;
+                change.card = card;
+                change.category = category;
+                return change;
+            });
+        } catch (Exception e) {
+            log.error("Failed to record trending engagement for ad {}", ad.getId(), e);
+        }
+    }
+
+    private void apply(String adId, Change change, double growth, Set<String> touched) {
+        Entry entry = entries.get(adId);
+        if (entry != null && change.reset) {
+            unrank(entry);
+            entries.remove(adId);
+            touched.add(entry.category);
+            entry = null;
+        }
+        if (change.removed) return;
+
+        if (entry == null) {
+            // A card refresh alone never starts tracking an ad
+            if (change.weight <= 0) return;
+            entry = new Entry(adId);
+            entries.put(adId, entry);
+        } else {
+            unrank(entry);
+            touched.add(entry.category);
+        }
+
+        // Score and category may only change while the entry is out of the ordered sets
+        entry.score += change.weight * growth;
+        entry.category = change.category;
+        entry.card = change.card;
+        rank(entry);
+        touched.add(entry.category);
+    }
+
+    private void rank(Entry entry) {
+        ranked.computeIfAbsent(ALL_CATEGORIES, key -> new TreeSet<>(HIGHEST_FIRST)).add(entry);
+        ranked.computeIfAbsent(entry.category, key -> new TreeSet<>(HIGHEST_FIRST)).add(entry);
+    }
+
+    private void unrank(Entry entry) {
+        TreeSet<Entry> all = ranked.get(ALL_CATEGORIES);
+        if (all != null) all.remove(entry);
+        TreeSet<Entry> category = ranked.get(entry.category);
+        if (category != null) category.remove(entry);
+    }
+
+    private void rescale(long now) {
+        double factor = Math.exp(-lambdaPerMilli * (now - landmark));
+        entries.values().forEach(entry -> entry.score *= factor);
+        landmark = now;
+    }
+
+    // Rounding while rescaling can tie scores that were ordered, so the sets are rebuilt afterwards
+    private void rebuild() {
+        ranked.clear();
+        entries.values().forEach(this::rank);
+    }
+
+    private void publish(String category, long now) {
+        TreeSet<Entry> set = ranked.get(category);
+        if (set == null || set.isEmpty()) {
+            ranked.remove(category);
+            rankings.remove(category);
+            return;
+        }
+
+        double decay = Math.exp(-lambdaPerMilli * (now - landmark));
+        TrendingAdResponse[] ranking = set.stream()
+                .limit(topK)
+                .map(entry -> entry.card.toBuilder()
+                        .score(Math.round(entry.score * decay * 100) / 100.0)
+                        .build())
+                .toArray(TrendingAdResponse[]::new);
+        rankings.put(category, ranking);
+    }
+
+    private TrendingAdResponse toCard(UserAd ad) {
+        return TrendingAdResponse.builder()
+                .id(ad.getId())
+                .title(ad.getTitle())
+                .price(ad.getPrice())
+                .category(ad.getCategory())
+                .location(ad.getLocation())
+                .image(ad.getImages() != null && !ad.getImages().isEmpty() ? ad.getImages().get(0).getUrl() : null)
+                .datePosted(ad.getDatePosted())
+                .build();
+    }
+
+    private static String categoryKey(String category) {
+        return category == null || category.isBlank() ? "uncategorized" : category.trim().toLowerCase();
+    }
+
+    private static final class Entry {
+        private final String id;
+        private String category;
+        private double score;
+        private TrendingAdResponse card;
+
+        private Entry(String id) {
+            this.id = id;
+        }
+    }
+
+    // Changes to one ad since the last publish; only touched inside compute on its key
+    private static final class Change {
+        private double weight;
+        private String category;
+        private TrendingAdResponse card;
+        private boolean removed;
+        // Set once the ad was removed, so engagement before the removal is not carried over
+        private boolean reset;
+    }
+}
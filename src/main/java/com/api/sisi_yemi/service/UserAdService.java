@@ -1,16 +1,22 @@
 package com.api.sisi_yemi.service;
 
+import com.api.sisi_yemi.dto.AdSearchPage;
+import com.api.sisi_yemi.dto.BulkDeletionStatus;
 import com.api.sisi_yemi.dto.FilteredAdResponse;
+import com.api.sisi_yemi.dto.PatchAdRequest;
 import com.api.sisi_yemi.dto.RecentActiveAdResponse;
+import com.api.sisi_yemi.event.AdChangedEvent;
 import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.model.UserAd;
+import com.api.sisi_yemi.model.UserAdStats;
+import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
 import com.api.sisi_yemi.repository.UserAdDynamoDbRepositoryImpl;
-import com.api.sisi_yemi.util.AdValidator;
 import com.api.sisi_yemi.util.DynamoDbUtilHelper;
 import com.api.sisi_yemi.util.FilterAdHelper;
 import com.api.sisi_yemi.util.ImageUploader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.core.pagination.sync.SdkIterable;
@@ -21,6 +27,7 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.api.sisi_yemi.util.FilterAdHelper.*;
@@ -30,50 +37,40 @@ import static com.api.sisi_yemi.util.FilterAdHelper.*;
 @Slf4j
 public class UserAdService {
 
+    private static final int MAX_USER_ADS_PAGE_SIZE = 100;
+    private static final int STREAM_PAGE_SIZE = 100;
+
     private final UserAdDynamoDbRepositoryImpl userAdRepository;
-    private final AdValidator adValidator;
     private final ImageUploader imageUploader;
     private final DynamoDbUtilHelper dynamoDbUtilHelper;
     private final FilterAdHelper filterAdHelper;
+    private final RecentActiveAdsFeed recentActiveAdsFeed;
+    private final AdBulkDeletionService adBulkDeletionService;
+    private final UserAdStatsService userAdStatsService;
+    private final PriceDropNotifier priceDropNotifier;
+    private final AdSearchService adSearchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<UserAd> getUserAdsByStatus(String userId, UserAd.AdStatus status) {
         return userAdRepository.findByUserIdAndStatus(userId, status);
     }
 
     public Map<String, Object> getUserAdStats(String userId) {
-        long activeCount = userAdRepository.countByUserIdAndStatus(userId, UserAd.AdStatus.ACTIVE);
-        long soldCount = userAdRepository.countByUserIdAndStatus(userId, UserAd.AdStatus.SOLD);
-        long draftCount = userAdRepository.countByUserIdAndStatus(userId, UserAd.AdStatus.DRAFT);
-        long totalCount = userAdRepository.countByUserId(userId);
-
-        List<UserAd> allAds = userAdRepository.findByUserId(userId);
-        int totalViews = allAds.stream().mapToInt(UserAd::getViews).sum();
-        int totalMessages = allAds.stream().mapToInt(UserAd::getMessages).sum();
-        double totalEarnings = allAds.stream()
-                .filter(ad -> ad.getStatus() == UserAd.AdStatus.SOLD)
-                .mapToDouble(UserAd::getPrice)
-                .sum();
+        UserAdStats stats = userAdStatsService.getStats(userId);
 
         return Map.of(
-                "activeCount", activeCount,
-                "soldCount", soldCount,
-                "draftCount", draftCount,
-                "totalCount", totalCount,
-                "totalViews", totalViews,
-                "totalMessages", totalMessages,
-                "totalEarnings", totalEarnings
+                "activeCount", stats.getActiveCount(),
+                "soldCount", stats.getSoldCount(),
+                "draftCount", stats.getDraftCount(),
+                "totalCount", stats.getTotalCount(),
+                "totalViews", stats.getTotalViews(),
+                "totalMessages", stats.getTotalMessages(),
+                "totalEarnings", stats.getTotalEarnings()
         );
     }
 
     public void createAdWithImages(UserAd userAd, String userId) {
         userAd.setUserId(userId);
-        adValidator.validateAdCreation(userAd);
-
-        if (userAdRepository.existsDuplicate(userId, userAd.getTitle(), userAd.getPrice(),
-                userAd.getCategory(), userAd.getStatus())) {
-            throw new IllegalArgumentException("Duplicate ad detected");
-        }
-
         userAd.setId(userAd.getId());
         userAd.setViews(0);
         userAd.setMessages(0);
@@ -81,6 +78,7 @@ public class UserAdService {
         userAd.setStatus(UserAd.AdStatus.ACTIVE);
 
         userAdRepository.save(userAd);
+        eventPublisher.publishEvent(AdChangedEvent.created(userAd));
     }
 
     public void updateAdWithImages(UserAd updatedAd, String userId) {
@@ -91,12 +89,7 @@ public class UserAdService {
             throw new SecurityException("Unauthorized update attempt");
         }
 
-        if (userAdRepository.existsDuplicateExceptId(userId, updatedAd.getTitle(), updatedAd.getPrice(),
-                updatedAd.getCategory(), updatedAd.getStatus(),
-                updatedAd.getId())) {
-            throw new IllegalArgumentException("Duplicate ad detected");
-        }
-
+        UserAd previousAd = existingAd.toBuilder().build();
         existingAd.setTitle(updatedAd.getTitle());
         existingAd.setDescription(updatedAd.getDescription());
         existingAd.setPrice(updatedAd.getPrice());
@@ -106,13 +99,40 @@ public class UserAdService {
         existingAd.setStatus(updatedAd.getStatus());
         existingAd.setDatePosted(Instant.now());
 
-        adValidator.validateAdUpdate(existingAd);
-        userAdRepository.save(existingAd);
+        userAdRepository.update(previousAd, existingAd);
+        eventPublisher.publishEvent(AdChangedEvent.updated(previousAd, existingAd));
+        if (PriceDropNotifier.isPriceDrop(previousAd, existingAd)) {
+            priceDropNotifier.notifyPriceDrop(previousAd, existingAd);
+        }
     }
+
+    public UserAd patchAd(String adId, PatchAdRequest patch, String userId) {
+        if (patch.isEmpty()) {
+            throw new ApiException("No fields to update", HttpStatus.BAD_REQUEST, "EMPTY_PATCH");
+        }
+
+        UserAdDynamoDbRepository.PatchResult result = userAdRepository.patch(adId, userId, patch);
+        if (result.previous() != result.current()) {
+            eventPublisher.publishEvent(AdChangedEvent.updated(result.previous(), result.current()));
+            if (PriceDropNotifier.isPriceDrop(result.previous(), result.current())) {
+                priceDropNotifier.notifyPriceDrop(result.previous(), result.current());
+            }
+        }
+        return result.current();
+    }
+
     public List<UserAd> getAllAdsByUserId(String userId) {
         return userAdRepository.findByUserId(userId);
     }
 
+    public UserAdDynamoDbRepository.UserAdPage getUserAdsPage(String userId, int limit, String cursor) {
+        return userAdRepository.findPageByUserId(userId, Math.clamp(limit, 1, MAX_USER_ADS_PAGE_SIZE), cursor);
+    }
+
+    public void streamUserAds(String userId, Consumer<List<UserAd>> pageConsumer) {
+        userAdRepository.forEachPageByUserId(userId, STREAM_PAGE_SIZE, pageConsumer);
+    }
+
     public void deleteSingleAd(String adId, String userId) {
         UserAd ad = userAdRepository.findById(adId)
                 .orElseThrow(() -> new ApiException("Ad not found", HttpStatus.NOT_FOUND, "AD_NOT_FOUND"));
@@ -128,55 +148,35 @@ public class UserAdService {
             });
         }
 
-        userAdRepository.deleteById(adId);
+        userAdRepository.delete(ad);
+        eventPublisher.publishEvent(AdChangedEvent.deleted(ad));
     }
 
-    public void deleteAllAdsByUserId(String userId) {
-        List<UserAd> userAds = userAdRepository.findByUserId(userId);
-
-        userAds.forEach(ad -> {
-            if (ad.getImages() != null) {
-                ad.getImages().forEach(image -> {
-                    String key = imageUploader.extractS3KeyFromUrl(image.getUrl());
-                    imageUploader.deleteImageFromS3(key);
-                });
-            }
-            userAdRepository.deleteById(ad.getId());
-        });
+    public BulkDeletionStatus deleteAllAdsByUserId(String userId) {
+        return adBulkDeletionService.deleteAllAdsByUserId(userId);
     }
 
-    public List<RecentActiveAdResponse> getRecentActiveAds() {
-        List<UserAd> activeAds = userAdRepository.findRecentActiveAds(10);
+    public BulkDeletionStatus getBulkDeletionStatus(String jobId, String userId) {
+        return adBulkDeletionService.getStatus(jobId, userId);
+    }
 
-        return activeAds.stream()
-                .map(this::mapToRecentActiveAdResponse)
-                .collect(Collectors.toList());
+    public byte[] getRecentActiveAds() {
+        return recentActiveAdsFeed.payload();
     }
 
     public void deleteAllRecentActiveAds() {
         List<UserAd> activeAds = userAdRepository.findRecentActiveAds(10);
-        activeAds.forEach(ad -> userAdRepository.deleteById(ad.getId()));
+        activeAds.forEach(ad -> {
+            userAdRepository.delete(ad);
+            eventPublisher.publishEvent(AdChangedEvent.deleted(ad));
+        });
     }
 
     private RecentActiveAdResponse mapToRecentActiveAdResponse(UserAd ad) {
         try {
             if (ad == null) return null;
 
-            return RecentActiveAdResponse.builder()
-                    .id(ad.getId() != null ? ad.getId() : "unknown")
-                    .title(ad.getTitle() != null ? ad.getTitle() : "No Title")
-                    .price(ad.getPrice())
-                    .category(ad.getCategory() != null ? ad.getCategory() : "Uncategorized")
-                    .description(ad.getDescription() != null ? ad.getDescription() : "")
-                    .location(ad.getLocation() != null ? ad.getLocation() : "Unknown Location")
-                    .condition(ad.getCondition() != null ? ad.getCondition() : "Unknown")
-                    .images(ad.getImages() != null ? ad.getImages() : Collections.emptyList())
-                    .views(ad.getViews())
-                    .messages(ad.getMessages())
-                    .datePosted(ad.getDatePosted() != null ? ad.getDatePosted() : Instant.now())
-                    .status(UserAd.AdStatus.valueOf(ad.getStatus() != null ? ad.getStatus().name() : "UNKNOWN"))
-                    .dateSold(ad.getDateSold())
-                    .build();
+            return RecentActiveAdResponse.fromEntity(ad);
         } catch (Exception e) {
             log.error("Error mapping ad to response: {}", ad.getId(), e);
             return null;
@@ -272,6 +272,30 @@ public class UserAdService {
         return new FilteredAdResponse(responseItems, nextToken, hasNextPage);
     }
 
+    public AdSearchPage searchAds(
+            List<String> statusStrs,
+            String sellerId,
+            String category,
+            String location,
+            String condition,
+            Double minPrice,
+            Double maxPrice,
+            String search,
+            int limit,
+            String cursor
+    ) {
+        validateFilterParameters(category, location, condition, minPrice, maxPrice, search);
+        Set<UserAd.AdStatus> statuses = EnumSet.noneOf(UserAd.AdStatus.class);
+        statusStrs.forEach(status -> statuses.add(FilterAdHelper.parseStatus(status.trim())));
+        if (statuses.isEmpty()) {
+            throw new IllegalArgumentException("At least one status is required");
+        }
+
+        return adSearchService.search(statuses,
+                new AdSearchService.Criteria(sellerId, category, location, condition, minPrice, maxPrice, search),
+                limit, cursor);
+    }
+
     private List<RecentActiveAdResponse> convertToResponse(List<UserAd> userAds) {
         return userAds.stream()
                 .map(this::mapToRecentActiveAdResponse)
@@ -0,0 +1,158 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.model.UserAdStats;
+import com.api.sisi_yemi.repository.UserAdDynamoDbRepository;
+import com.api.sisi_yemi.repository.UserAdStatsRepository;
+import com.api.sisi_yemi.util.DynamoDbUtilHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Serves the per-user ad dashboard from the {@link UserAdStats} aggregate. {@link #reconcile()}
+ * repairs drift (lost view deltas, racing updates) by recounting from the ads table; it scans
+ * the whole table, so it runs as the {@code ad-stats} job of {@link BackfillJobRunner} from a
+ * daily scheduled task rather than on every instance.
+ */
+@Service
+@Slf4j
+public class UserAdStatsService {
+
+    private static final double EARNINGS_TOLERANCE = 0.005;
+
+    private final UserAdStatsRepository userAdStatsRepository;
+    private final UserAdDynamoDbRepository userAdRepository;
+    private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final Duration indexSettleTime;
+
+    public UserAdStatsService(UserAdStatsRepository userAdStatsRepository,
+                              UserAdDynamoDbRepository userAdRepository,
+                              DynamoDbUtilHelper dynamoDbUtilHelper,
+                              @Value("${ads.stats.index-settle-ms:10000}") long indexSettleMs) {
+        this.userAdStatsRepository = userAdStatsRepository;
+        this.userAdRepository = userAdRepository;
+        this.dynamoDbUtilHelper = dynamoDbUtilHelper;
+        this.indexSettleTime = Duration.ofMillis(indexSettleMs);
+    }
+
+    public UserAdStats getStats(String userId) {
+        UserAdStats stored = userAdStatsRepository.findByUserId(userId).orElse(null);
+        return isComplete(stored) ? stored : rebuild(userId, stored);
+    }
+
+    // Users without a complete item yet are rebuilt one by one
+    public Map<String, UserAdStats> getStats(Collection<String> userIds) {
+        Map<String, UserAdStats> stats = new HashMap<>();
+        userAdStatsRepository.findByUserIds(userIds).forEach(item -> stats.put(item.getId(), item));
+        userIds.forEach(userId -> {
+            UserAdStats stored = stats.get(userId);
+            if (!isComplete(stored)) stats.put(userId, rebuild(userId, stored));
+        });
+        return stats;
+    }
+
+    // Failures propagate so the job exits non-zero
+    public void reconcile() {
+        // Versions are read before counting, so a delta that lands mid-scan fails the replace
+        Map<String, UserAdStats> stored = new HashMap<>();
+        userAdStatsRepository.findAll().forEach(stats -> stored.put(stats.getId(), stats));
+
+        Map<String, UserAdStats.Delta> actual = new HashMap<>();
+        dynamoDbUtilHelper.getUserAdsTable().getRawTable()
+                .scan(ScanEnhancedRequest.builder()
+                        .attributesToProject("userId", "status", "views", "messages", "price")
+                        .consistentRead(true)
+                        .build())
+                .items()
+                .forEach(ad -> {
+                    if (ad.getUserId() != null) {
+                        actual.merge(ad.getUserId(), UserAdStats.Delta.of(ad), UserAdStats.Delta::plus);
+                    }
+                });
+
+        Set<String> userIds = new HashSet<>(stored.keySet());
+        userIds.addAll(actual.keySet());
+
+        int repaired = 0;
+        int skipped = 0;
+        for (String userId : userIds) {
+            UserAdStats current = stored.get(userId);
+            UserAdStats.Delta counted = actual.getOrDefault(userId, UserAdStats.Delta.ZERO);
+            if (current != null && matches(current, counted)) continue;
+
+            Long expectedVersion = current != null ? current.getVersion() : null;
+            if (userAdStatsRepository.replace(toStats(userId, counted, expectedVersion), expectedVersion)) {
+                repaired++;
+            } else {
+                skipped++;
+            }
+        }
+        log.info("Reconciled ad stats for {} users: {} repaired, {} changed during the scan",
+                userIds.size(), repaired, skipped);
+    }
+
+    /**
+     * Only rebuilt or reconciled items carry {@code reconciledAt}. One without it was created by a
+     * transactional delta alone, so it holds that delta rather than the user's totals.
+     */
+    private static boolean isComplete(UserAdStats stats) {
+        return stats != null && stats.getReconciledAt() != null;
+    }
+
+    /**
+     * First dashboard load for a user whose ads predate the aggregate. userId-index is eventually
+     * consistent, so a count taken soon after an ad write may miss that ad: it is served but not
+     * stored, and a later read counts again once the index has settled.
+     */
+    private UserAdStats rebuild(String userId, UserAdStats partial) {
+        Long expectedVersion = partial != null ? partial.getVersion() : null;
+        UserAdStats.Delta counted = userAdRepository.findByUserId(userId).stream()
+                .map(UserAdStats.Delta::of)
+                .reduce(UserAdStats.Delta.ZERO, UserAdStats.Delta::plus);
+
+        UserAdStats stats = toStats(userId, counted, expectedVersion);
+        if (partial != null && !indexSettled(partial)) {
+            return stats;
+        }
+        if (!userAdStatsRepository.replace(stats, expectedVersion)) {
+            // An ad write landed meanwhile; the next read rebuilds again if the item is still partial
+            return userAdStatsRepository.findByUserId(userId).orElse(stats);
+        }
+        return stats;
+    }
+
+    private boolean indexSettled(UserAdStats partial) {
+        Instant updatedAt = partial.getUpdatedAt();
+        return updatedAt == null || updatedAt.isBefore(Instant.now().minus(indexSettleTime));
+    }
+
+    private static boolean matches(UserAdStats stats, UserAdStats.Delta counted) {
+        return stats.getActiveCount() == counted.active()
+                && stats.getSoldCount() == counted.sold()
+                && stats.getDraftCount() == counted.draft()
+                && stats.getTotalCount() == counted.total()
+                && stats.getTotalViews() == counted.views()
+                && stats.getTotalMessages() == counted.messages()
+                && Math.abs(stats.getTotalEarnings() - counted.earnings()) < EARNINGS_TOLERANCE;
+    }
+
+    private static UserAdStats toStats(String userId, UserAdStats.Delta counted, Long previousVersion) {
+        return UserAdStats.builder()
+                .id(userId)
+                .activeCount(counted.active())
+                .soldCount(counted.sold())
+                .draftCount(counted.draft())
+                .totalCount(counted.total())
+                .totalViews(counted.views())
+                .totalMessages(counted.messages())
+                .totalEarnings(counted.earnings())
+                .version(previousVersion != null ? previousVersion + 1 : 0)
+                .reconciledAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.AdNotification;
+import com.api.sisi_yemi.model.UserNotification;
+import com.api.sisi_yemi.repository.UserNotificationRepository;
+import com.api.sisi_yemi.util.MessageIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The inbox behind listing alerts. Alerts are stored before any live push, so users who were
+ * offline find them here; the table's TTL drops them after the retention period.
+ */
+@Service
+public class UserNotificationService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final UserNotificationRepository notificationRepository;
+    private final Duration retention;
+
+    public UserNotificationService(UserNotificationRepository notificationRepository,
+                                   @Value("${notifications.retention-days:30}") int retentionDays) {
+        this.notificationRepository = notificationRepository;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    public UserNotificationRepository.NotificationPage getNotifications(String userId, int limit, String cursor) {
+        return notificationRepository.findPageByUserId(userId, Math.clamp(limit, 1, MAX_PAGE_SIZE), cursor);
+    }
+
+    // Returns how many notifications could not be stored
+    public int store(Map<String, List<AdNotification>> notificationsByUser) {
+        List<UserNotification> items = new ArrayList<>();
+        notificationsByUser.forEach((userId, notifications) ->
+                notifications.forEach(notification -> items.add(toItem(userId, notification))));
+        return items.isEmpty() ? 0 : notificationRepository.saveAll(items);
+    }
+
+    private UserNotification toItem(String userId, AdNotification notification) {
+        Instant createdAt = notification.createdAt() != null ? notification.createdAt() : Instant.now();
+        return UserNotification.builder()
+                .userId(userId)
+                .id(MessageIds.generate(LocalDateTime.ofInstant(createdAt, ZoneOffset.UTC)))
+                .type(notification.type())
+                .adId(notification.adId())
+                .title(notification.title())
+                .price(notification.price())
+                .previousPrice(notification.previousPrice())
+                .imageUrl(notification.imageUrl())
+                .savedSearchId(notification.savedSearchId())
+                .savedSearchName(notification.savedSearchName())
+                .createdAt(createdAt)
+                .expiresAt(createdAt.plus(retention).getEpochSecond())
+                .build();
+    }
+}
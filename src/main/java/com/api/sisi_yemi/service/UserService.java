@@ -3,11 +3,13 @@ package com.api.sisi_yemi.service;
 import com.api.sisi_yemi.dto.UserLoginRequest;
 import com.api.sisi_yemi.dto.UserSignupRequest;
 import com.api.sisi_yemi.dto.UserUpdateRequest;
+import com.api.sisi_yemi.event.UserProfileChangedEvent;
 import com.api.sisi_yemi.exception.ApiException;
 import com.api.sisi_yemi.model.User;
 import com.api.sisi_yemi.util.dynamodb.DynamoDbHelper;
 import com.api.sisi_yemi.util.dynamodb.DynamoDbHelperFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.mail.MailException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -24,17 +26,20 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
     private final VerificationTokenService verificationTokenService;
+    private final ApplicationEventPublisher eventPublisher;
     private final String USER_TABLE_NAME;
 
     public UserService(DynamoDbHelperFactory dynamoDbHelperFactory,
                        PasswordEncoder passwordEncoder,
                        EmailService emailService,
                        VerificationTokenService verificationTokenService,
+                       ApplicationEventPublisher eventPublisher,
                        @Value("${users.table}") String USER_TABLE_NAME) {
         this.dynamoDbHelperFactory = dynamoDbHelperFactory;
         this.passwordEncoder = passwordEncoder;
         this.emailService = emailService;
         this.verificationTokenService = verificationTokenService;
+        this.eventPublisher = eventPublisher;
         this.USER_TABLE_NAME = USER_TABLE_NAME;
     }
 
@@ -116,6 +121,13 @@ public class UserService {
         }
 
         userHelper.save(user);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
+    }
+
+    public void deleteUser(String userId) {
+        DynamoDbHelper<User> userHelper = dynamoDbHelperFactory.getHelper(USER_TABLE_NAME, User.class);
+        userHelper.deleteById(userId);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
     }
 
     public void resendVerificationEmail(String email) {
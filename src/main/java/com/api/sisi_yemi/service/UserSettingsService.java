@@ -7,6 +7,10 @@ import com.api.sisi_yemi.util.DynamoDbUtilHelper;
 import com.api.sisi_yemi.util.dynamodb.DynamoDbHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 public class UserSettingsService {
 
@@ -22,6 +26,15 @@ public class UserSettingsService {
                 .orElseGet(() -> createDefaultSettings(userId));
     }
 
+    // Users without a stored item get the defaults
+    public Map<String, UserSettings> getSettings(Collection<String> userIds) {
+        Map<String, UserSettings> settings = new HashMap<>();
+        dynamoDbUtilHelper.getUserSettingsTable().batchGetByIds(userIds)
+                .forEach(item -> settings.put(item.getId(), item));
+        userIds.forEach(userId -> settings.computeIfAbsent(userId, this::createDefaultSettings));
+        return settings;
+    }
+
     public void updateSettings(String userId, UserSettingsUpdateRequest updates) {
         UserSettings settings = getExistingOrCreateDefault(userId);
 
@@ -0,0 +1,128 @@
+package com.api.sisi_yemi.util;
+
+import com.api.sisi_yemi.model.AdDedupeGuard;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter over every {@code dedupeKey} in the ads table, used while ads that predate the
+ * dedupe guards still need a dedupeKey-index query. A key it has never seen cannot belong to such
+ * an ad, so the query is skipped. Ads written since carry guards and are caught by the guard
+ * write instead, which is why the filter is only reseeded, not fed by writes. Once the guard
+ * backfill marker exists the filter is dropped and no longer seeded.
+ */
+@Component
+@Slf4j
+public class DedupeKeyFilter {
+
+    private final DynamoDbUtilHelper dynamoDbUtilHelper;
+    private final int initialCapacity;
+    private final double falsePositiveRate;
+
+    private volatile ScalableBloomFilter filter;
+    private volatile boolean ready;
+    private volatile boolean retired;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong queriesAvoided = new AtomicLong();
+    private final AtomicLong probablePositives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public DedupeKeyFilter(DynamoDbUtilHelper dynamoDbUtilHelper,
+                           MeterRegistry meterRegistry,
+                           @Value("${ads.dedupe.bloom.initial-capacity:100000}") int initialCapacity,
+                           @Value("${ads.dedupe.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.dynamoDbUtilHelper = dynamoDbUtilHelper;
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+
+        Gauge.builder("ads.dedupe.bloom.checks", checks, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("ads.dedupe.bloom.queries.avoided", queriesAvoided, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("ads.dedupe.bloom.false.positive.rate", this, DedupeKeyFilter::observedFalsePositiveRate).register(meterRegistry);
+        Gauge.builder("ads.dedupe.bloom.expected.false.positive.rate", this, f -> f.filter.expectedFalsePositiveRate()).register(meterRegistry);
+        Gauge.builder("ads.dedupe.bloom.keys", this, f -> f.filter.approximateCount()).register(meterRegistry);
+    }
+
+    // Reseeded while instances without guard writes may still be running, so their keys are picked up
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${ads.dedupe.bloom.reseed-interval-ms:3600000}",
+            fixedDelayString = "${ads.dedupe.bloom.reseed-interval-ms:3600000}")
+    public void seed() {
+        if (retired) return;
+
+        try {
+            if (guardsBackfilled()) {
+                retire();
+                return;
+            }
+
+            ScalableBloomFilter next = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+            dynamoDbUtilHelper.getUserAdsTable().getRawTable()
+                    .scan(ScanEnhancedRequest.builder()
+                            .attributesToProject("dedupeKey")
+                            .consistentRead(true)
+                            .build())
+                    .items()
+                    .forEach(ad -> {
+                        if (ad.getDedupeKey() != null) next.put(ad.getDedupeKey());
+                    });
+
+            filter = next;
+            ready = true;
+            log.info("Dedupe bloom filter seeded with ~{} keys (expected fp rate {}, observed {}, queries avoided {})",
+                    next.approximateCount(),
+                    String.format("%.4f", next.expectedFalsePositiveRate()),
+                    String.format("%.4f", observedFalsePositiveRate()),
+                    queriesAvoided.get());
+        } catch (Exception e) {
+            log.error("Failed to seed dedupe bloom filter; duplicate checks will query DynamoDB", e);
+        }
+    }
+
+    public boolean mightContain(String dedupeKey) {
+        checks.incrementAndGet();
+        if (!ready) {
+            return true;
+        }
+
+        if (filter.mightContain(dedupeKey)) {
+            probablePositives.incrementAndGet();
+            return true;
+        }
+        queriesAvoided.incrementAndGet();
+        return false;
+    }
+
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    private boolean guardsBackfilled() {
+        Key key = Key.builder().partitionValue(AdDedupeGuard.BACKFILL_COMPLETE_ID).build();
+        return dynamoDbUtilHelper.getAdDedupeGuardTable().getRawTable().getItem(r -> r.key(key)) != null;
+    }
+
+    private void retire() {
+        retired = true;
+        ready = false;
+        filter = new ScalableBloomFilter(1, falsePositiveRate);
+        log.info("Dedupe guards are backfilled; dropping the dedupe bloom filter (observed fp rate {}, queries avoided {})",
+                String.format("%.4f", observedFalsePositiveRate()), queriesAvoided.get());
+    }
+
+    private double observedFalsePositiveRate() {
+        long positives = probablePositives.get();
+        return positives == 0 ? 0 : (double) falsePositives.get() / positives;
+    }
+}
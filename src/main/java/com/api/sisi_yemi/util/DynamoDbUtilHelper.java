@@ -36,5 +36,25 @@ public class DynamoDbUtilHelper {
         return factory.getHelper("user_settings", UserSettings.class);
     }
 
+    public DynamoDbHelper<AdDedupeGuard> getAdDedupeGuardTable() {
+        return factory.getHelper("ad_dedupe_guards", AdDedupeGuard.class);
+    }
+
+    public DynamoDbHelper<UserAdStats> getUserAdStatsTable() {
+        return factory.getHelper("user_ad_stats", UserAdStats.class);
+    }
+
+    public DynamoDbHelper<AdFavoriter> getAdFavoriterTable() {
+        return factory.getHelper("ad_favoriters", AdFavoriter.class);
+    }
+
+    public DynamoDbHelper<SavedSearch> getSavedSearchTable() {
+        return factory.getHelper("saved_searches", SavedSearch.class);
+    }
+
+    public DynamoDbHelper<UserNotification> getUserNotificationTable() {
+        return factory.getHelper("user_notifications", UserNotification.class);
+    }
+
 }
 
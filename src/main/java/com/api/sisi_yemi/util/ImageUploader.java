@@ -8,9 +8,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
@@ -19,12 +17,18 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
 @Slf4j
 public class ImageUploader {
 
+    // Hard limit of a single S3 DeleteObjects call
+    public static final int MAX_KEYS_PER_DELETE = 1000;
+
     private final S3Client s3Client;
     private final S3Presigner s3Presigner;
 
@@ -63,6 +67,35 @@ public class ImageUploader {
         }
     }
 
+    /**
+     * Deletes up to {@link #MAX_KEYS_PER_DELETE} objects in a single request.
+     * Returns the keys that could not be deleted mapped to the reason; an empty map means success.
+     */
+    public Map<String, String> deleteImagesFromS3(List<String> keys) {
+        if (keys.isEmpty()) return Map.of();
+        if (keys.size() > MAX_KEYS_PER_DELETE) {
+            throw new IllegalArgumentException("At most " + MAX_KEYS_PER_DELETE + " keys per delete request");
+        }
+
+        Map<String, String> failures = new HashMap<>();
+        try {
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder()
+                            .objects(keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                            // Quiet mode only reports the keys that failed
+                            .quiet(true)
+                            .build())
+                    .build());
+
+            response.errors().forEach(error -> failures.put(error.key(), error.code() + ": " + error.message()));
+        } catch (Exception e) {
+            log.error("Failed to delete {} images from S3", keys.size(), e);
+            keys.forEach(key -> failures.put(key, e.getMessage()));
+        }
+        return failures;
+    }
+
     private String generateS3Key(String filename, String userId) {
         return String.format("ads/%s/%s_%s",
                 userId,
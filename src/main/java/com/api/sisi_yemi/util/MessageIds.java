@@ -0,0 +1,68 @@
+package com.api.sisi_yemi.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered message ids in the spirit of ULIDs: 13 Crockford base32 characters holding the
+ * message timestamp as nanoseconds since the epoch, then 16 random ones. Because the timestamp
+ * is the messages table's sort key, an id alone is enough to address its item. Messages written
+ * before this scheme carry plain UUIDs, for which {@link #timestampOf} is empty.
+ */
+public final class MessageIds {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int TIME_CHARS = 13;
+    private static final int RANDOM_CHARS = 16;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private MessageIds() {
+    }
+
+    public static String generate(LocalDateTime timestamp) {
+        long nanos = Math.addExact(Math.multiplyExact(timestamp.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND),
+                timestamp.getNano());
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Message timestamps before 1970 are not supported: " + timestamp);
+        }
+
+        char[] id = new char[TIME_CHARS + RANDOM_CHARS];
+        for (int i = TIME_CHARS - 1; i >= 0; i--) {
+            id[i] = ALPHABET[(int) (nanos & 31)];
+            nanos >>>= 5;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = TIME_CHARS; i < id.length; i++) {
+            id[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(id);
+    }
+
+    public static Optional<LocalDateTime> timestampOf(String messageId) {
+        if (messageId == null || messageId.length() != TIME_CHARS + RANDOM_CHARS) {
+            return Optional.empty();
+        }
+
+        long nanos = 0;
+        for (int i = 0; i < messageId.length(); i++) {
+            int digit = digit(messageId.charAt(i));
+            if (digit < 0) return Optional.empty();
+            if (i < TIME_CHARS) {
+                // 13 characters carry 65 bits, but a non-negative long leaves the top two clear
+                if (i == 0 && digit > 7) return Optional.empty();
+                nanos = (nanos << 5) | digit;
+            }
+        }
+        return Optional.of(LocalDateTime.ofEpochSecond(
+                nanos / NANOS_PER_SECOND, (int) (nanos % NANOS_PER_SECOND), ZoneOffset.UTC));
+    }
+
+    private static int digit(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,137 @@
+package com.api.sisi_yemi.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe scalable Bloom filter (Almeida et al.). When the newest slice reaches its
+ * capacity a larger slice with a tighter error rate is added, so the compound
+ * false-positive rate stays under the configured bound however many keys arrive.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final List<Slice> slices = new CopyOnWriteArrayList<>();
+
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+        // The first slice gets p * (1 - r) so the geometric series sums to p
+        slices.add(new Slice(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO)));
+    }
+
+    public boolean mightContain(String value) {
+        long[] hashes = hash(value);
+        for (Slice slice : slices) {
+            if (slice.mightContain(hashes[0], hashes[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String value) {
+        long[] hashes = hash(value);
+        for (Slice slice : slices) {
+            if (slice.mightContain(hashes[0], hashes[1])) {
+                return;
+            }
+        }
+        currentSlice().put(hashes[0], hashes[1]);
+    }
+
+    public long approximateCount() {
+        return slices.stream().mapToLong(slice -> slice.count.get()).sum();
+    }
+
+    public double expectedFalsePositiveRate() {
+        double miss = 1;
+        for (Slice slice : slices) {
+            miss *= 1 - slice.currentFalsePositiveRate();
+        }
+        return 1 - miss;
+    }
+
+    private Slice currentSlice() {
+        Slice last = slices.get(slices.size() - 1);
+        if (last.count.get() < last.capacity) {
+            return last;
+        }
+
+        synchronized (slices) {
+            last = slices.get(slices.size() - 1);
+            if (last.count.get() >= last.capacity) {
+                last = new Slice(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+                slices.add(last);
+            }
+            return last;
+        }
+    }
+
+    private static long[] hash(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        // 64-bit FNV-1a, finalised with the MurmurHash3 mixer
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        long h1 = mix(h);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        return new long[]{h1, h2};
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Slice {
+        private final int capacity;
+        private final double falsePositiveRate;
+        private final long numBits;
+        private final int numHashes;
+        private final AtomicLongArray bits;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Slice(int capacity, double falsePositiveRate) {
+            this.capacity = Math.max(capacity, 1);
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.numBits = Math.max(64, optimalBits);
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / this.capacity * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((numBits + 63) / 64));
+        }
+
+        private boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < numHashes; i++) {
+                long index = Long.remainderUnsigned(h1 + i * h2, numBits);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long h1, long h2) {
+            for (int i = 0; i < numHashes; i++) {
+                long index = Long.remainderUnsigned(h1 + i * h2, numBits);
+                long mask = 1L << index;
+                bits.getAndAccumulate((int) (index >>> 6), mask, (current, bit) -> current | bit);
+            }
+            count.incrementAndGet();
+        }
+
+        private double currentFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) numHashes * count.get() / numBits), numHashes);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.api.sisi_yemi.util;
+
+import java.util.*;
+
+/**
+ * Radix trie of weighted strings for prefix completion. Every node caches the top-K entries
+ * of its subtree, so a lookup costs one walk down the prefix and never visits the subtree.
+ * Weight changes re-rank only the nodes on the changed key's path.
+ * Not thread-safe; callers synchronise.
+ */
+public class SuggestionTrie {
+
+    private static final double EPSILON = 1e-9;
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    private static final Comparator<Suggestion> BY_WEIGHT = Comparator
+            .comparingDouble(Suggestion::weight).reversed()
+            .thenComparing(Suggestion::text);
+
+    private final int topK;
+    private final Node root = new Node("", null);
+    private int size;
+
+    public SuggestionTrie(int topK) {
+        this.topK = topK;
+    }
+
+    public record Suggestion(String text, double weight) {}
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds {@code delta} to the weight of {@code key}, inserting it if absent. A key whose
+     * weight drops to zero is removed and the path compressed again.
+     */
+    public void add(String key, double delta) {
+        if (key == null || key.isEmpty() || delta == 0) return;
+
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                if (delta < 0) return;
+                Node leaf = new Node(key.substring(i), node);
+                node.children.put(key.charAt(i), leaf);
+                node = leaf;
+                break;
+            }
+
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                if (delta < 0) return;
+                node = split(child, common);
+            } else {
+                node = child;
+            }
+            i += common;
+        }
+
+        if (node.key == null) {
+            if (delta < 0) return;
+            node.key = key;
+            size++;
+        }
+        node.weight += delta;
+        if (node.weight <= EPSILON) {
+            node.key = null;
+            node.weight = 0;
+            size--;
+        }
+
+        rerankFrom(compact(node));
+    }
+
+    public List<Suggestion> complete(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) return List.of();
+
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                // The prefix ends on or inside this edge
+                node = child;
+                break;
+            }
+            if (common < child.label.length()) return List.of();
+
+            node = child;
+            i += common;
+        }
+
+        Suggestion[] top = node.top;
+        return Arrays.asList(Arrays.copyOf(top, Math.min(Math.max(limit, 0), top.length)));
+    }
+
+    // Splits child's edge after `at` characters and returns the new intermediate node
+    private Node split(Node child, int at) {
+        Node parent = child.parent;
+        Node middle = new Node(child.label.substring(0, at), parent);
+        parent.children.put(middle.label.charAt(0), middle);
+
+        child.label = child.label.substring(at);
+        child.parent = middle;
+        middle.children.put(child.label.charAt(0), child);
+        middle.top = child.top;
+        return middle;
+    }
+
+    // Drops emptied leaves and merges pass-through nodes; returns the lowest node still in the trie
+    private Node compact(Node node) {
+        while (node != root && node.key == null) {
+            Node parent = node.parent;
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+                node = parent;
+            } else if (node.children.size() == 1) {
+                Node only = node.children.values().iterator().next();
+                only.label = node.label + only.label;
+                only.parent = parent;
+                parent.children.put(only.label.charAt(0), only);
+                return parent;
+            } else {
+                break;
+            }
+        }
+        return node;
+    }
+
+    private void rerankFrom(Node node) {
+        for (Node current = node; current != null; current = current.parent) {
+            current.top = rank(current);
+        }
+    }
+
+    private Suggestion[] rank(Node node) {
+        List<Suggestion> candidates = new ArrayList<>();
+        if (node.key != null) {
+            candidates.add(new Suggestion(node.key, node.weight));
+        }
+        for (Node child : node.children.values()) {
+            Collections.addAll(candidates, child.top);
+        }
+        if (candidates.isEmpty()) return NONE;
+
+        candidates.sort(BY_WEIGHT);
+        return candidates.subList(0, Math.min(topK, candidates.size())).toArray(Suggestion[]::new);
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private String label;
+        private Node parent;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private String key;
+        private double weight;
+        private Suggestion[] top = NONE;
+
+        private Node(String label, Node parent) {
+            this.label = label;
+            this.parent = parent;
+        }
+    }
+}
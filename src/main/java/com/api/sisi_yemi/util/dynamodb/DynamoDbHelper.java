@@ -2,8 +2,11 @@ package com.api.sisi_yemi.util.dynamodb;
 
 import software.amazon.awssdk.enhanced.dynamodb.*;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -11,13 +14,19 @@ import java.util.stream.Collectors;
 
 public class DynamoDbHelper<T> {
 
+    // Hard limit of a single BatchGetItem call
+    private static final int MAX_BATCH_GET = 100;
+
+    private final DynamoDbEnhancedClient enhancedClient;
     private final DynamoDbTable<T> table;
+    private final Class<T> clazz;
 
     public DynamoDbHelper(DynamoDbClient dynamoDbClient, String tableName, Class<T> clazz) {
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+        this.enhancedClient = DynamoDbEnhancedClient.builder()
                 .dynamoDbClient(dynamoDbClient)
                 .build();
         this.table = enhancedClient.table(tableName, TableSchema.fromBean(clazz));
+        this.clazz = clazz;
     }
 
     public DynamoDbTable<T> getRawTable() {
@@ -33,6 +42,24 @@ public class DynamoDbHelper<T> {
         return Optional.ofNullable(table.getItem(r -> r.key(key)));
     }
 
+    // Missing ids are simply absent from the result, which is in no particular order
+    public List<T> batchGetByIds(Collection<String> ids) {
+        List<String> distinct = ids.stream().distinct().toList();
+        List<T> items = new ArrayList<>(distinct.size());
+
+        for (int i = 0; i < distinct.size(); i += MAX_BATCH_GET) {
+            ReadBatch.Builder<T> batch = ReadBatch.builder(clazz).mappedTableResource(table);
+            distinct.subList(i, Math.min(i + MAX_BATCH_GET, distinct.size()))
+                    .forEach(id -> batch.addGetItem(Key.builder().partitionValue(id).build()));
+
+            // The paginated result re-requests unprocessed keys on its own
+            enhancedClient.batchGetItem(r -> r.readBatches(batch.build()))
+                    .resultsForTable(table)
+                    .forEach(items::add);
+        }
+        return items;
+    }
+
     public void deleteById(String id) {
         Key key = Key.builder().partitionValue(id).build();
         table.deleteItem(r -> r.key(key));
@@ -0,0 +1,40 @@
+package com.api.sisi_yemi.config;
+
+import com.api.sisi_yemi.messaging.BrokerMessageBus;
+import com.api.sisi_yemi.messaging.InMemoryMessageBroker;
+import com.api.sisi_yemi.messaging.LoopbackMessageBus;
+import com.api.sisi_yemi.messaging.MessageBroker;
+import com.api.sisi_yemi.messaging.MessageBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageBusConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(MessageBusConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+    @Test
+    void defaultsToLoopback() {
+        contextRunner.run(context -> assertThat(context.getBean(MessageBus.class)).isInstanceOf(LoopbackMessageBus.class));
+    }
+
+    @Test
+    void brokerModeFailsWithoutABroker() {
+        contextRunner.withPropertyValues("messaging.bus.type=broker")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().hasRootCauseInstanceOf(IllegalStateException.class)
+                        .rootCause().hasMessageContaining("MessageBroker bean"));
+    }
+
+    @Test
+    void brokerModeUsesTheProvidedBroker() {
+        contextRunner.withPropertyValues("messaging.bus.type=broker")
+                .withBean(MessageBroker.class, InMemoryMessageBroker::new)
+                .run(context -> assertThat(context.getBean(MessageBus.class)).isInstanceOf(BrokerMessageBus.class));
+    }
+}
@@ -0,0 +1,138 @@
+package com.api.sisi_yemi.handler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WebSocketSessionRegistryTest {
+
+    private static final int SESSIONS = 100_000;
+    // Ten sessions per user, so threads keep racing on the same user's set
+    private static final int USERS = 10_000;
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new WebSocketSessionRegistry(meterRegistry);
+    }
+
+    // 100k sessions take a while, so run with -Dstress=true
+    @Test
+    @Tag("stress")
+    @EnabledIfSystemProperty(named = "stress", matches = "true")
+    void registersAndUnregistersConcurrently() throws Exception {
+        OutboundSession[] sessions = sessions(SESSIONS);
+        runConcurrently(i -> registry.register(userOf(i), sessions[i]));
+
+        assertEquals(SESSIONS, gauge("websocket.sessions.connected"));
+        assertEquals(USERS, gauge("websocket.users.connected"));
+        assertEquals(USERS, registry.userIds().size());
+        assertEquals(SESSIONS / USERS, registry.sessionsOf(userOf(0)).size());
+
+        runConcurrently(i -> registry.unregister("session-" + i));
+
+        assertEmpty();
+    }
+
+    @Test
+    @Tag("stress")
+    @EnabledIfSystemProperty(named = "stress", matches = "true")
+    void connectsRacingDisconnectsLeaveNoEmptyUsers() throws Exception {
+        OutboundSession[] sessions = sessions(SESSIONS);
+        // Every session connects and drops straight away, racing its user's other sessions doing the same
+        runConcurrently(i -> {
+            registry.register(userOf(i), sessions[i]);
+            assertSame(sessions[i], registry.find("session-" + i));
+            registry.unregister("session-" + i);
+        });
+
+        assertEmpty();
+    }
+
+    @Test
+    void unregisteringTwiceCountsOnce() {
+        OutboundSession first = session(0);
+        OutboundSession second = session(USERS);
+        registry.register(userOf(0), first);
+        registry.register(userOf(0), second);
+
+        registry.unregister("session-0");
+        registry.unregister("session-0");
+
+        assertEquals(1, gauge("websocket.sessions.connected"));
+        assertEquals(1, gauge("websocket.users.connected"));
+        assertTrue(registry.hasSessions(userOf(0)));
+    }
+
+    private void assertEmpty() {
+        assertEquals(0, gauge("websocket.sessions.connected"));
+        assertEquals(0, gauge("websocket.users.connected"));
+        assertTrue(registry.userIds().isEmpty(), "users left with an empty session set");
+        for (int user = 0; user < USERS; user++) {
+            assertFalse(registry.hasSessions(userOf(user)));
+            assertTrue(registry.sessionsOf(userOf(user)).isEmpty());
+        }
+    }
+
+    // Runs the action for every session index, interleaved across the threads
+    private void runConcurrently(IntConsumer action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int first = t;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = first; i < SESSIONS; i += THREADS) {
+                        action.accept(i);
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static OutboundSession[] sessions(int count) {
+        OutboundSession[] sessions = new OutboundSession[count];
+        for (int i = 0; i < count; i++) {
+            sessions[i] = session(i);
+        }
+        return sessions;
+    }
+
+    private static OutboundSession session(int index) {
+        OutboundSession session = mock(OutboundSession.class, withSettings().stubOnly());
+        when(session.getId()).thenReturn("session-" + index);
+        return session;
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private static String userOf(int session) {
+        return "user-" + (session % USERS);
+    }
+}
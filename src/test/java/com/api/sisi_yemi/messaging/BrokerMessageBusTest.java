@@ -0,0 +1,150 @@
+package com.api.sisi_yemi.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Two instances sharing one broker, as two application instances would share a real one
+class BrokerMessageBusTest {
+
+    private static final int MAX_BATCH_SIZE = 4;
+
+    private InMemoryMessageBroker broker;
+    private SimpleMeterRegistry metersA;
+    private SimpleMeterRegistry metersB;
+    private BrokerMessageBus busA;
+    private BrokerMessageBus busB;
+    private RecordingEndpoint endpointA;
+    private RecordingEndpoint endpointB;
+
+    @BeforeEach
+    void setUp() {
+        broker = spy(new InMemoryMessageBroker());
+        metersA = new SimpleMeterRegistry();
+        metersB = new SimpleMeterRegistry();
+        busA = new BrokerMessageBus(broker, metersA, MAX_BATCH_SIZE);
+        busB = new BrokerMessageBus(broker, metersB, MAX_BATCH_SIZE);
+        endpointA = new RecordingEndpoint();
+        endpointB = new RecordingEndpoint();
+        busA.bind(endpointA);
+        busB.bind(endpointB);
+
+        endpointA.connect(busA, "alice");
+        endpointB.connect(busB, "bob");
+    }
+
+    @Test
+    void deliversToTheInstanceHoldingTheUser() {
+        busA.publish(frame("bob", "hello bob"));
+        busA.flush();
+
+        assertTrue(endpointA.delivered.isEmpty());
+        assertDelivered(endpointB, "bob", "hello bob");
+        verify(broker, times(1)).publish(anyString(), any());
+        assertEquals(1, count(metersA, "messaging.bus.batches"));
+        assertEquals(1, count(metersA, "messaging.bus.forwarded"));
+    }
+
+    @Test
+    void deliversToLocalUsersWithoutTheBroker() {
+        busA.publish(frame("alice", "hello alice"));
+        busA.flush();
+
+        assertDelivered(endpointA, "alice", "hello alice");
+        assertTrue(endpointB.delivered.isEmpty());
+        verify(broker, never()).publish(anyString(), any());
+        assertEquals(0, count(metersA, "messaging.bus.batches"));
+    }
+
+    @Test
+    void flushesOneBrokerMessagePerInstanceOnceTheBatchIsFull() {
+        for (int i = 0; i < MAX_BATCH_SIZE - 1; i++) {
+            busA.publish(frame("bob", "frame " + i));
+        }
+        assertTrue(endpointB.delivered.isEmpty(), "a partial batch waits for the timer");
+
+        busA.publish(frame("bob", "frame " + (MAX_BATCH_SIZE - 1)));
+
+        assertEquals(MAX_BATCH_SIZE, endpointB.delivered.size());
+        for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+            assertEquals("frame " + i, text(endpointB.delivered.get(i)));
+        }
+        verify(broker, times(1)).publish(anyString(), any());
+        assertEquals(1, count(metersA, "messaging.bus.batches"));
+        assertEquals(MAX_BATCH_SIZE, count(metersA, "messaging.bus.forwarded"));
+    }
+
+    @Test
+    void dropsFramesForUsersConnectedNowhere() {
+        endpointB.disconnect(busB, "bob");
+
+        busA.publish(frame("bob", "too late"));
+        busA.publish(frame("carol", "never connected"));
+        busA.flush();
+
+        assertTrue(endpointA.delivered.isEmpty());
+        assertTrue(endpointB.delivered.isEmpty());
+        verify(broker, never()).publish(anyString(), any());
+        assertEquals(2, count(metersA, "messaging.bus.undeliverable"));
+    }
+
+    @Test
+    void keepsPresenceFlagAcrossTheBroker() {
+        busA.publish(new BusFrame("bob", "online".getBytes(StandardCharsets.UTF_8), true));
+        busA.flush();
+
+        assertEquals(1, endpointB.delivered.size());
+        assertTrue(endpointB.delivered.getFirst().presence());
+    }
+
+    private static void assertDelivered(RecordingEndpoint endpoint, String userId, String text) {
+        assertEquals(1, endpoint.delivered.size());
+        BusFrame frame = endpoint.delivered.getFirst();
+        assertEquals(userId, frame.userId());
+        assertEquals(text, text(frame));
+        assertFalse(frame.presence());
+    }
+
+    private static BusFrame frame(String userId, String text) {
+        return new BusFrame(userId, text.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    private static String text(BusFrame frame) {
+        return new String(frame.payload(), StandardCharsets.UTF_8);
+    }
+
+    private static double count(SimpleMeterRegistry meters, String name) {
+        return meters.counter(name).count();
+    }
+
+    private static final class RecordingEndpoint implements MessageBus.Endpoint {
+        private final List<BusFrame> delivered = Collections.synchronizedList(new ArrayList<>());
+        private final Set<String> users = new HashSet<>();
+
+        void connect(MessageBus bus, String userId) {
+            users.add(userId);
+            bus.userConnected(userId);
+        }
+
+        void disconnect(MessageBus bus, String userId) {
+            users.remove(userId);
+            bus.userDisconnected(userId);
+        }
+
+        @Override
+        public void deliver(BusFrame frame) {
+            delivered.add(frame);
+        }
+
+        @Override
+        public Collection<String> connectedUserIds() {
+            return users;
+        }
+    }
+}
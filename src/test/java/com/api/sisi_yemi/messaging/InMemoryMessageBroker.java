@@ -0,0 +1,50 @@
+package com.api.sisi_yemi.messaging;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Process-local {@link MessageBroker} for tests. Several {@link BrokerMessageBus}es sharing one
+ * instance behave like instances sharing a real broker. Messages are delivered on the publishing
+ * thread.
+ */
+public class InMemoryMessageBroker implements MessageBroker {
+
+    private final Map<String, List<Consumer<byte[]>>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        listeners.getOrDefault(channel, List.of()).forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void addMember(String set, String member) {
+        sets.computeIfAbsent(set, s -> ConcurrentHashMap.newKeySet()).add(member);
+    }
+
+    @Override
+    public void removeMember(String set, String member) {
+        sets.computeIfPresent(set, (s, members) -> {
+            members.remove(member);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    @Override
+    public Map<String, Set<String>> members(Collection<String> names) {
+        Map<String, Set<String>> result = new HashMap<>();
+        for (String name : names) {
+            Set<String> members = sets.get(name);
+            if (members != null) result.put(name, Set.copyOf(members));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,119 @@
+package com.api.sisi_yemi.service;
+
+import com.api.sisi_yemi.dto.MessageDto;
+import com.api.sisi_yemi.dto.MessageHistoryPage;
+import com.api.sisi_yemi.model.Conversation;
+import com.api.sisi_yemi.model.Message;
+import com.api.sisi_yemi.model.User;
+import com.api.sisi_yemi.repository.ConversationDynamoDbRepositoryImpl;
+import com.api.sisi_yemi.repository.MessageRepository;
+import com.api.sisi_yemi.util.DynamoDbUtilHelper;
+import com.api.sisi_yemi.util.dynamodb.DynamoDbHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceTest {
+
+    private static final String CONVERSATION_ID = "conversation-1";
+    private static final String BUYER_ID = "buyer-1";
+    private static final String SELLER_ID = "seller-1";
+
+    @Mock
+    private DynamoDbUtilHelper dynamoDbUtilHelper;
+    @Mock
+    private DynamoDbHelper<Conversation> conversationTable;
+    @Mock
+    private DynamoDbHelper<User> userTable;
+    @Mock
+    private ConversationDynamoDbRepositoryImpl conversationRepository;
+    @Mock
+    private MessageRepository messageRepository;
+    @Mock
+    private ConversationSummaryMaintainer summaryMaintainer;
+    @Mock
+    private ConversationStateCache stateCache;
+
+    private MessageService messageService;
+
+    @BeforeEach
+    void setUp() {
+        MessageSenderCache senderCache = new MessageSenderCache(dynamoDbUtilHelper, new SimpleMeterRegistry(), 300, 10_000);
+        messageService = new MessageService(dynamoDbUtilHelper, conversationRepository, messageRepository,
+                senderCache, summaryMaintainer, stateCache);
+
+        when(dynamoDbUtilHelper.getConversationTable()).thenReturn(conversationTable);
+        when(dynamoDbUtilHelper.getUserTable()).thenReturn(userTable);
+        when(conversationTable.getById(CONVERSATION_ID)).thenReturn(Optional.of(Conversation.builder()
+                .id(CONVERSATION_ID)
+                .participantId(BUYER_ID)
+                .sellerId(SELLER_ID)
+                .build()));
+        when(userTable.batchGetByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> User.builder().id(id).name("User " + id).build()).toList();
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 30, 100})
+    void resolvesEverySenderWithOneBatchRead(int messageCount) {
+        when(messageRepository.findSlice(eq(CONVERSATION_ID), isNull(), isNull(), anyInt()))
+                .thenReturn(new MessageRepository.MessageSlice(messages(messageCount), false));
+
+        MessageHistoryPage page = messageService.getMessages(CONVERSATION_ID, BUYER_ID, null, null, messageCount);
+
+        assertEquals(messageCount, page.items().size());
+        for (MessageDto item : page.items()) {
+            assertEquals(senderOf(item.getId()), item.getSender().getId());
+        }
+        verify(userTable, times(1)).batchGetByIds(anyCollection());
+        verify(userTable, never()).getById(anyString());
+    }
+
+    @Test
+    void servesSendersFromTheCacheOnTheNextPage() {
+        when(messageRepository.findSlice(eq(CONVERSATION_ID), any(), isNull(), anyInt()))
+                .thenReturn(new MessageRepository.MessageSlice(messages(30), true));
+
+        MessageHistoryPage first = messageService.getMessages(CONVERSATION_ID, BUYER_ID, null, null, 30);
+        messageService.getMessages(CONVERSATION_ID, SELLER_ID, first.before(), null, 30);
+
+        verify(userTable, times(1)).batchGetByIds(anyCollection());
+        verify(userTable, never()).getById(anyString());
+    }
+
+    // Both parties take turns, so every page with more than one message has two senders
+    private static List<Message> messages(int count) {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        return IntStream.range(0, count)
+                .mapToObj(i -> Message.builder()
+                        .conversationId(CONVERSATION_ID)
+                        .messageId("message-" + i)
+                        .senderId(i % 2 == 0 ? BUYER_ID : SELLER_ID)
+                        .content("Message " + i)
+                        .timestamp(start.plusMinutes(i))
+                        .build())
+                .toList();
+    }
+
+    private static String senderOf(String messageId) {
+        int index = Integer.parseInt(messageId.substring("message-".length()));
+        return index % 2 == 0 ? BUYER_ID : SELLER_ID;
+    }
+}